@@ -132,7 +132,7 @@ export function Dashboard() {
       }
 
       try {
-        const results = await API.searchCommunities(trimmedText);
+        const results = await API.suggestCommunities(trimmedText);
         setCommunitySuggestions(Array.isArray(results) ? results : []);
         setShowSuggestions(true);
       } catch (e) {
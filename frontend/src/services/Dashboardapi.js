@@ -56,6 +56,24 @@ export async function getAllPosts({ communityId, signal } = {}) {
 	return await request(url, { method: "GET", signal });
 }
 
+// Keyset-paginated feed: returns { content, nextCursor, hasNext }.
+// Pass the previous page's nextCursor to load the next one.
+// sort: "new" (default) or "hot"
+export async function getPostsPage({ communityId, cursor, limit = 20, sort, signal } = {}) {
+	const params = new URLSearchParams();
+	if (sort) {
+		params.set("sort", String(sort));
+	}
+	if (communityId != null) {
+		params.set("communityId", String(communityId));
+	}
+	if (cursor) {
+		params.set("cursor", String(cursor));
+	}
+	params.set("limit", String(limit));
+	return await request(`${BASE}/posts?${params.toString()}`, { method: "GET", signal });
+}
+
 export async function getPost(id, { signal } = {}) {
 	if (id == null) throw new Error("post id is required");
 	return await request(`${BASE}/posts/${encodeURIComponent(String(id))}`, { method: "GET", signal });
@@ -66,6 +84,16 @@ export async function getPostComments(id, { signal } = {}) {
 	return await request(`${BASE}/posts/${encodeURIComponent(String(id))}/comments`, { method: "GET", signal });
 }
 
+// Whole comment tree of a post in one request: { postId, totalComments, comments, hasMore }.
+// Each comment has nested `replies` and `hasMoreReplies` when a level was truncated.
+export async function getPostThread(id, { depth = 5, limit = 50, signal } = {}) {
+	if (id == null) throw new Error("post id is required");
+	const params = new URLSearchParams();
+	params.set("depth", String(depth));
+	params.set("limit", String(limit));
+	return await request(`${BASE}/posts/${encodeURIComponent(String(id))}/thread?${params.toString()}`, { method: "GET", signal });
+}
+
 export async function getCommentChildren(id, { signal } = {}) {
     if (id == null) throw new Error("comment id is required");
     return await request(`${BASE}/comments/${encodeURIComponent(String(id))}/comments`, { method: "GET", signal });
@@ -90,6 +118,41 @@ export async function searchCommunities(query = "", { signal } = {}) {
 	return await request(`${BASE}/communities/search?${params.toString()}`, { method: "GET", signal });
 }
 
+// Typeahead: [{ id, name, count }], names starting with the query first,
+// then by member count (communities) or post count (hashtags).
+export async function suggestCommunities(query = "", { limit = 5, signal } = {}) {
+	const params = new URLSearchParams();
+	params.set("q", String(query ?? ""));
+	params.set("limit", String(limit));
+	return await request(`${BASE}/communities/suggest?${params.toString()}`, { method: "GET", signal });
+}
+
+export async function suggestHashtags(query = "", { limit = 5, signal } = {}) {
+	const params = new URLSearchParams();
+	params.set("q", String(query ?? ""));
+	params.set("limit", String(limit));
+	return await request(`${BASE}/hashtags/suggest?${params.toString()}`, { method: "GET", signal });
+}
+
+// Posts with a hashtag, newest first: { content, nextCursor, hasNext }.
+// Pass nextCursor back as cursor for the next page; 404 for an unknown tag.
+export async function getHashtagPosts(name, { cursor, limit = 20, signal } = {}) {
+	if (!name) throw new Error("name is required");
+	const params = new URLSearchParams();
+	if (cursor) {
+		params.set("cursor", String(cursor));
+	}
+	params.set("limit", String(limit));
+	return await request(`${BASE}/hashtags/${encodeURIComponent(String(name))}/posts?${params.toString()}`, { method: "GET", signal });
+}
+
+// [{ id, name, uses }], the hashtags used by the most posts recently.
+export async function getTrendingHashtags({ limit = 10, signal } = {}) {
+	const params = new URLSearchParams();
+	params.set("limit", String(limit));
+	return await request(`${BASE}/hashtags/trending?${params.toString()}`, { method: "GET", signal });
+}
+
 export async function getCommunitiesPaginated(page = 0, size = 15, { signal } = {}) {
 	const params = new URLSearchParams();
 	params.set("page", String(page));
@@ -112,23 +175,115 @@ export async function toggleCommunityMembership(communityId, userId, { signal }
 	});
 }
 
+// Joined or not for many communities at once: { [communityId]: boolean }.
+export async function getMemberships(userId, communityIds = [], { signal } = {}) {
+	if (userId == null) throw new Error("userId is required");
+	const params = new URLSearchParams();
+	params.set("userId", String(userId));
+	params.set("ids", communityIds.map(String).join(","));
+	return await request(`${BASE}/communities/membership?${params.toString()}`, { method: "GET", signal });
+}
+
 export async function getUserJoinedCommunities(userId, { signal } = {}) {
 	if (userId == null) throw new Error("userId is required");
 	return await request(`${BASE}/users/${encodeURIComponent(String(userId))}/joined-communities`, { method: "GET", signal });
 }
 
+export async function getUserFeed(userId, { cursor, limit = 20, signal } = {}) {
+	if (userId == null) throw new Error("userId is required");
+	const params = new URLSearchParams();
+	if (cursor) {
+		params.set("cursor", String(cursor));
+	}
+	params.set("limit", String(limit));
+	return await request(`${BASE}/users/${encodeURIComponent(String(userId))}/feed?${params.toString()}`, { method: "GET", signal });
+}
+
+// Live stream of new posts and comments (server-sent events).
+// EventSource cannot send the Authorization header, so this reads the
+// stream with fetch. Calls onPost(post) / onComment(comment) for each event
+// and reconnects after a drop; when the server disconnects a client that
+// fell behind, onReconnect() is the cue to refetch the current page.
+// Returns a function that closes the stream.
+export function subscribeToStream({ communityId, onPost, onComment, onReconnect } = {}) {
+	const controller = new AbortController();
+	const params = new URLSearchParams();
+	if (communityId != null) {
+		params.set("communityId", String(communityId));
+	}
+	const url = params.toString() ? `${BASE}/stream?${params.toString()}` : `${BASE}/stream`;
+
+	const dispatch = (frame) => {
+		let event = "message";
+		const data = [];
+		for (const line of frame.split("\n")) {
+			if (line.startsWith("event:")) event = line.slice(6).trim();
+			else if (line.startsWith("data:")) data.push(line.slice(5).replace(/^ /, ""));
+		}
+		if (data.length === 0) return; // heartbeat or comment
+		const payload = JSON.parse(data.join("\n"));
+		if (event === "post" && onPost) onPost(payload);
+		else if (event === "comment" && onComment) onComment(payload);
+	};
+
+	const run = async () => {
+		let delay = 1000;
+		let connected = false;
+		while (!controller.signal.aborted) {
+			try {
+				const token = localStorage.getItem('jwt_token');
+				const res = await fetch(url, {
+					signal: controller.signal,
+					headers: token ? { Authorization: `Bearer ${token}`, Accept: "text/event-stream" } : { Accept: "text/event-stream" },
+				});
+				if (!res.ok || !res.body) throw new Error(`Stream failed with status ${res.status}`);
+				if (connected && onReconnect) onReconnect();
+				connected = true;
+				delay = 1000;
+				const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+				let buffer = "";
+				for (;;) {
+					const { value, done } = await reader.read();
+					if (done) break;
+					buffer += value.replace(/\r\n?/g, "\n");
+					let end;
+					while ((end = buffer.indexOf("\n\n")) >= 0) {
+						dispatch(buffer.slice(0, end));
+						buffer = buffer.slice(end + 2);
+					}
+				}
+			} catch (e) {
+				if (controller.signal.aborted) return;
+			}
+			await new Promise((resolve) => setTimeout(resolve, delay));
+			delay = Math.min(delay * 2, 30000);
+		}
+	};
+	run();
+	return () => controller.abort();
+}
+
 export default {
 	createPost,
 	search,
 	searchCommunities,
+	suggestCommunities,
+	suggestHashtags,
+	getHashtagPosts,
+	getTrendingHashtags,
 	getAllPosts,
+	getPostsPage,
 	getPost,
 	getPostComments,
+	getPostThread,
 	getCommentChildren,
 	createComment,
 	getAllCommunities,
 	getCommunitiesPaginated,
 	getAllFlags,
 	toggleCommunityMembership,
+	getMemberships,
 	getUserJoinedCommunities,
+	getUserFeed,
+	subscribeToStream,
 };
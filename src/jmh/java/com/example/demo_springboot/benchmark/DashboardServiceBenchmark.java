@@ -0,0 +1,127 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.DemoSpringbootApplication;
+import com.example.demo_springboot.DTO.FeedPage;
+import com.example.demo_springboot.DTO.PostView;
+import com.example.demo_springboot.model.Community;
+import com.example.demo_springboot.model.Flag;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.model.User;
+import com.example.demo_springboot.repository.CommunityRepository;
+import com.example.demo_springboot.repository.FlagRepository;
+import com.example.demo_springboot.repository.HashtagRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.UserRepository;
+import com.example.demo_springboot.service.DashboardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DashboardService read paths end to end (JPQL projection, hashtag batch
+ * load, mapping to views) with the whole application running on H2 in
+ * MySQL mode, seeded with POSTS posts over COMMUNITIES communities. Numbers
+ * are only comparable between runs on the same machine; the point is to
+ * catch a change that adds queries or mapping work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DashboardServiceBenchmark {
+
+    private static final int POSTS = 5000;
+    private static final int COMMUNITIES = 50;
+
+    private ConfigurableApplicationContext context;
+    private DashboardService dashboardService;
+    private long communityId;
+    private long[] postIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoSpringbootApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "spring.sql.init.mode=never",
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "jwt.secret=" + JwtFilterBenchmark.SECRET,
+                        "admin.role=admin",
+                        "admin.pass=admin",
+                        // scheduled jobs stay out of the measurement
+                        "counters.reconcile.initial-delay-ms=86400000",
+                        "app.hot.snapshot-interval-ms=86400000",
+                        "app.suggest.reload-interval-ms=86400000")
+                .run();
+        dashboardService = context.getBean(DashboardService.class);
+        seed();
+    }
+
+    private void seed() {
+        User author = context.getBean(UserRepository.class)
+                .save(new User(null, "alice", "alice@example.com", "pw", "user"));
+        Flag flag = context.getBean(FlagRepository.class).save(new Flag(null, "question"));
+        List<Hashtag> tags = context.getBean(HashtagRepository.class).saveAll(List.of(
+                new Hashtag(null, "java"), new Hashtag(null, "spring"), new Hashtag(null, "jpa")));
+        List<Community> communities = new ArrayList<>();
+        for (int i = 0; i < COMMUNITIES; i++)
+            communities.add(context.getBean(CommunityRepository.class).save(new Community(null, "community-" + i)));
+        communityId = communities.get(0).getId();
+
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post();
+            post.setTitle("post " + i);
+            post.setBody("body of post " + i + " with a few more words in it");
+            post.setCreatedAt(now.minusSeconds(random.nextInt(30 * 24 * 3600)));
+            post.setAuthor(author);
+            post.setCommunity(communities.get(i % COMMUNITIES));
+            post.setFlag(flag);
+            post.getHashtags().addAll(tags.subList(0, 1 + i % tags.size()));
+            posts.add(post);
+        }
+        List<Post> saved = context.getBean(PostRepository.class).saveAll(posts);
+        postIds = new long[1024];
+        for (int i = 0; i < postIds.length; i++)
+            postIds[i] = saved.get(random.nextInt(saved.size())).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FeedPage feedFirstPage() {
+        return dashboardService.getFeedPage(null, null, 20);
+    }
+
+    @Benchmark
+    public FeedPage communityFeedFirstPage() {
+        return dashboardService.getFeedPage(communityId, null, 20);
+    }
+
+    @Benchmark
+    public PostView postById() {
+        return dashboardService.getPost(postIds[next++ & (postIds.length - 1)]);
+    }
+
+    // the unpaginated community list, POSTS / COMMUNITIES posts
+    @Benchmark
+    public List<PostView> allPostsOfCommunity() {
+        return dashboardService.getAllPosts(communityId);
+    }
+}
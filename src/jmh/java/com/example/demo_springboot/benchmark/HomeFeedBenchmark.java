@@ -0,0 +1,83 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.repository.HomeFeedRepository;
+import com.example.demo_springboot.repository.HomeFeedRepository.FeedKey;
+import com.example.demo_springboot.service.FeedMerger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of a home feed for a user in 1, 50 and 500 communities, on H2
+ * in MySQL mode with the production posts index. Compares the per-community
+ * seeks + k-way merge against one IN query over all joined communities, and
+ * times the in-memory merge on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HomeFeedBenchmark {
+
+    private static final int COMMUNITIES = 500;
+    private static final int POSTS_PER_COMMUNITY = 200;
+    private static final int PAGE = 20;
+
+    @Param({ "1", "50", "500" })
+    public int joined;
+
+    private SingleConnectionDataSource dataSource;
+    private HomeFeedRepository repository;
+    private List<Long> communityIds;
+    private Collection<List<FeedKey>> perCommunity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:homefeed;MODE=MySQL;DATABASE_TO_LOWER=TRUE", true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE posts (id BIGINT PRIMARY KEY, community_id BIGINT, created_at TIMESTAMP(6))");
+        jdbc.execute("CREATE INDEX idx_posts_community_created_id ON posts (community_id, created_at, id)");
+
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        List<Object[]> rows = new ArrayList<>();
+        long id = 1;
+        for (long c = 1; c <= COMMUNITIES; c++) {
+            for (int i = 0; i < POSTS_PER_COMMUNITY; i++)
+                rows.add(new Object[] { id++, c, Timestamp.from(now.minusSeconds(random.nextInt(30 * 24 * 3600))) });
+        }
+        jdbc.batchUpdate("INSERT INTO posts (id, community_id, created_at) VALUES (?, ?, ?)", rows);
+
+        repository = new HomeFeedRepository(jdbc);
+        communityIds = new ArrayList<>();
+        for (long c = 1; c <= joined; c++)
+            communityIds.add(c);
+        perCommunity = repository.latestPerCommunity(communityIds, null, null, PAGE + 1).values();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<FeedKey> seekPerCommunityAndMerge() {
+        return FeedMerger.mergeNewestFirst(
+                repository.latestPerCommunity(communityIds, null, null, PAGE + 1).values(), PAGE + 1);
+    }
+
+    @Benchmark
+    public List<FeedKey> singleInQuery() {
+        return repository.latestInCommunities(communityIds, null, null, PAGE + 1);
+    }
+
+    @Benchmark
+    public List<FeedKey> mergeOnly() {
+        return FeedMerger.mergeNewestFirst(perCommunity, PAGE + 1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.config.JwtAuthenticationFilter;
+import com.example.demo_springboot.service.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of JwtAuthenticationFilter for a session that keeps sending the
+ * same token. verifiedCacheSize = 0 disables the verified-token cache, which
+ * reproduces the old behaviour of full HMAC verification on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtFilterBenchmark {
+
+    static final String SECRET = "ZGVtby1zcHJpbmdib290LWJlbmNobWFyay1zaWduaW5nLWtleS0zMmI=";
+
+    @Param({ "0", "10000" })
+    public long verifiedCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private String header;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TokenService tokenService = new TokenService(SECRET, "primary", "", TimeUnit.HOURS.toMillis(1));
+        filter = new JwtAuthenticationFilter(tokenService, verifiedCacheSize, new SimpleMeterRegistry());
+        header = "Bearer " + tokenService.issue("42", "user");
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        // OncePerRequestFilter marks the request, so each call needs a fresh one
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts");
+        request.setServletPath("/api/posts");
+        request.addHeader("Authorization", header);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+}
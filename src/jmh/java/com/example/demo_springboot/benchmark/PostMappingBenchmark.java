@@ -0,0 +1,108 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.DTO.HashtagView;
+import com.example.demo_springboot.DTO.PostRow;
+import com.example.demo_springboot.DTO.PostView;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one feed page into JSON: the old nested HashMap mapping vs
+ * PostView records. Run with the gc profiler (configured in build.gradle) and
+ * compare gc.alloc.rate.norm, i.e. bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostMappingBenchmark {
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private List<PostRow> rows;
+    private Map<Long, List<HashtagView>> tagsByPost;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new ArrayList<>(pageSize);
+        tagsByPost = new HashMap<>();
+        Instant now = Instant.now();
+        for (long id = 1; id <= pageSize; id++) {
+            rows.add(new PostRow(id, "title " + id, "body of post " + id + " with a few more words in it",
+                    now.minusSeconds(id), 7L, "alice", id % 10, "community-" + (id % 10), 1L, "question", 3));
+            tagsByPost.put(id, List.of(new HashtagView(1L, "java"), new HashtagView(2L, "spring"),
+                    new HashtagView(3L, "jpa")));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapToHashMaps() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (PostRow p : rows)
+            out.add(legacyMap(p, tagsByPost.get(p.id())));
+        return out;
+    }
+
+    @Benchmark
+    public List<PostView> mapToRecords() {
+        List<PostView> out = new ArrayList<>(rows.size());
+        for (PostRow p : rows)
+            out.add(PostView.from(p, tagsByPost.get(p.id())));
+        return out;
+    }
+
+    @Benchmark
+    public int serializeHashMaps() {
+        return write(mapToHashMaps());
+    }
+
+    @Benchmark
+    public int serializeRecords() {
+        return write(mapToRecords());
+    }
+
+    private int write(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        mapper.writeValue(out, value);
+        return out.size();
+    }
+
+    // what DashboardService.mapPost used to build for every post
+    private static Map<String, Object> legacyMap(PostRow p, List<HashtagView> hashtags) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", p.id());
+        m.put("title", p.title());
+        m.put("body", p.body());
+        m.put("createdAt", p.createdAt() == null ? null : p.createdAt().toString());
+
+        Map<String, Object> author = new HashMap<>();
+        author.put("id", p.authorId());
+        author.put("name", p.authorName());
+        m.put("author", author);
+
+        List<Map<String, Object>> tags = new ArrayList<>();
+        for (HashtagView h : hashtags)
+            tags.add(Map.of("id", h.id(), "name", h.name()));
+        m.put("hashtags", tags);
+
+        Map<String, Object> community = new HashMap<>();
+        community.put("id", p.communityId());
+        community.put("name", p.communityName());
+        m.put("community", community);
+
+        Map<String, Object> flag = new HashMap<>();
+        flag.put("id", p.flagId());
+        flag.put("name", p.flagName());
+        m.put("flag", flag);
+
+        m.put("commentCount", p.commentCount());
+        return m;
+    }
+}
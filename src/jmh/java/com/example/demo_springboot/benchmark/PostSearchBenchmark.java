@@ -0,0 +1,91 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.model.Community;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.service.PostSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lucene-backed search vs the old leading-wildcard ILIKE query. The ILIKE
+ * path is modelled in memory as what the database does for it: a full scan
+ * with a case-insensitive substring test on title and body, then a sort of
+ * every match by createdAt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostSearchBenchmark {
+
+    private static final String[] WORDS = { "spring", "boot", "java", "react", "docker", "kubernetes", "mysql",
+            "index", "cache", "thread", "latency", "query", "feed", "comment", "hashtag", "community", "deploy",
+            "gradle", "jwt", "token", "stream", "virtual", "lucene", "search", "ranking", "pagination" };
+
+    @Param({ "10000", "100000" })
+    public int posts;
+
+    @Param({ "kubernetes", "virtual thread" })
+    public String query;
+
+    private PostSearchIndex index;
+    private List<Post> table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new PostSearchIndex(null);
+        table = new ArrayList<>(posts);
+        Instant now = Instant.now();
+        for (long id = 1; id <= posts; id++) {
+            Post p = new Post();
+            p.setId(id);
+            p.setTitle(sentence(random, 6));
+            p.setBody(sentence(random, 60));
+            p.setCreatedAt(now.minusSeconds(id));
+            p.setCommunity(new Community(id % 90, "community-" + (id % 90)));
+            table.add(p);
+            index.index(p, List.of(new Hashtag(id % 500, WORDS[(int) (id % WORDS.length)])));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Benchmark
+    public List<Long> luceneFirstPage() {
+        return index.search(query, null, null, 0, 20);
+    }
+
+    @Benchmark
+    public List<Long> luceneFirstPageInCommunity() {
+        return index.search(query, null, 7L, 0, 20);
+    }
+
+    @Benchmark
+    public List<Post> ilikeScan() {
+        String q = query.toLowerCase(Locale.ROOT);
+        List<Post> out = new ArrayList<>();
+        for (Post p : table) {
+            if (p.getTitle().toLowerCase(Locale.ROOT).contains(q) || p.getBody().toLowerCase(Locale.ROOT).contains(q))
+                out.add(p);
+        }
+        out.sort(Comparator.comparing(Post::getCreatedAt).reversed());
+        return out;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0)
+                sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
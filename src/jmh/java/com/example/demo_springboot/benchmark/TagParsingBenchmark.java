@@ -0,0 +1,58 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.service.HashtagParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashtag extraction for createPost: HashtagParser against the
+ * {@code @([A-Za-z0-9_-]+)} regex it replaced, on a typical tags field and
+ * on a long post body with tags and e-mail addresses mixed in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TagParsingBenchmark {
+
+    private static final Pattern HASHTAG_PATTERN = Pattern.compile("@([A-Za-z0-9_-]+)");
+
+    @Param({ "tags", "body" })
+    public String input;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (input.equals("tags")) {
+            text = "@java @Spring-Boot @jpa @java @performance_tuning";
+        } else {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 40; i++) {
+                body.append("Paragraph ").append(i).append(" talks about latency and caching, ");
+                if (i % 5 == 0)
+                    body.append("ping ops@example.com or @team-").append(i % 3).append(' ');
+            }
+            text = body.toString();
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> parser() {
+        return HashtagParser.parse(text);
+    }
+
+    @Benchmark
+    public Map<String, String> regex() {
+        Map<String, String> names = new LinkedHashMap<>();
+        Matcher m = HASHTAG_PATTERN.matcher(text);
+        while (m.find())
+            names.putIfAbsent(m.group(1).toLowerCase(Locale.ROOT), m.group(1));
+        return names;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.service.TokenService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenService on its own: signing a token at login and parsing +
+ * verifying one, the work JwtFilterBenchmark's cache avoids. The "rotated"
+ * case verifies a token signed with a previous key, which is looked up by
+ * kid in jwt.previous-keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenBenchmark {
+
+    private static final String PREVIOUS_SECRET = "ZGVtby1zcHJpbmdib290LWJlbmNobWFyay1wcmV2aW91cy1rZXktMzI=";
+
+    private TokenService tokenService;
+    private String currentToken;
+    private String previousKeyToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long ttl = TimeUnit.HOURS.toMillis(1);
+        tokenService = new TokenService(JwtFilterBenchmark.SECRET, "primary", "old:" + PREVIOUS_SECRET, ttl);
+        currentToken = tokenService.issue("42", "user");
+        previousKeyToken = new TokenService(PREVIOUS_SECRET, "old", "", ttl).issue("42", "user");
+    }
+
+    @Benchmark
+    public String issue() {
+        return tokenService.issue("42", "user");
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return tokenService.parse(currentToken);
+    }
+
+    @Benchmark
+    public Claims parseRotated() {
+        return tokenService.parse(previousKeyToken);
+    }
+}
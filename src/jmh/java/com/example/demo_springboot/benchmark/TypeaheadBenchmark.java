@@ -0,0 +1,97 @@
+package com.example.demo_springboot.benchmark;
+
+import com.example.demo_springboot.DTO.SuggestionView;
+import com.example.demo_springboot.service.TypeaheadIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Community typeahead over 10k and 100k names: the in-memory index against
+ * the query behind searchCommunities (findByNameContainingIgnoreCase with a
+ * top-5 page) on H2 in MySQL mode. Queries are 2 to 5 character prefixes
+ * of existing names, cycled so each call sees a different keystroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TypeaheadBenchmark {
+
+    private static final String[] SYLLABLES = { "ja", "va", "spr", "ing", "boo", "t", "re", "act", "my", "sql",
+            "ku", "ber", "ne", "tes", "ru", "st", "go", "lang", "py", "thon", "da", "ta", "ops", "dev" };
+    private static final int LIMIT = 5;
+
+    @Param({ "10000", "100000" })
+    public int communities;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TypeaheadIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Set<String> names = new LinkedHashSet<>();
+        while (names.size() < communities) {
+            StringBuilder name = new StringBuilder();
+            int parts = 2 + random.nextInt(3);
+            for (int i = 0; i < parts; i++)
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            if (random.nextInt(4) == 0)
+                name.append(' ').append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            name.append(random.nextInt(100));
+            names.add(name.toString());
+        }
+
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:typeahead;MODE=MySQL;DATABASE_TO_LOWER=TRUE", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE communities (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE)");
+        List<Object[]> rows = new ArrayList<>();
+        List<SuggestionView> views = new ArrayList<>();
+        long id = 1;
+        for (String name : names) {
+            rows.add(new Object[] { id, name });
+            // skewed member counts, as in real communities
+            views.add(new SuggestionView(id, name, (long) (1000 / Math.pow(1 + random.nextInt(1000), 1.1))));
+            id++;
+        }
+        jdbc.batchUpdate("INSERT INTO communities (id, name) VALUES (?, ?)", rows);
+
+        index = new TypeaheadIndex();
+        index.load(views);
+
+        List<String> all = new ArrayList<>(names);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String name = all.get(random.nextInt(all.size()));
+            queries[i] = name.substring(0, Math.min(name.length(), 2 + random.nextInt(4)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    private String nextQuery() {
+        return queries[next++ & (queries.length - 1)];
+    }
+
+    @Benchmark
+    public List<SuggestionView> index() {
+        return index.suggest(nextQuery(), LIMIT);
+    }
+
+    // the SQL Spring Data derives for findByNameContainingIgnoreCase(q, PageRequest.of(0, 5, by name))
+    @Benchmark
+    public List<Map<String, Object>> databaseContains() {
+        return jdbc.queryForList("SELECT id, name FROM communities WHERE UPPER(name) LIKE UPPER(?) ESCAPE '\\' "
+                + "ORDER BY name LIMIT ?", "%" + nextQuery() + "%", LIMIT);
+    }
+}
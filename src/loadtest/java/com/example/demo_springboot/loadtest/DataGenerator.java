@@ -0,0 +1,160 @@
+package com.example.demo_springboot.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Writes a synthetic data set as NDJSON for the bulk import (see
+ * BulkImportService for the line format): users, posts with hashtags,
+ * communities and flags, comment trees under the posts, and community
+ * memberships.
+ *
+ * Popularity is Zipfian throughout: which communities and tags posts use,
+ * which users write, how comments spread over posts (a few posts get long
+ * threads, most get none or a handful) and which communities users join.
+ * Replies continue the previous comment half the time, which grows the
+ * deep chains real threads have, up to --max-depth.
+ *
+ * <pre>
+ * ./gradlew generateData -Pargs="--users=5000 --posts=100000 --comments=8 --out=data/synthetic.ndjson"
+ * # then start the app with --import=data/synthetic.ndjson, or POST it to /api/admin/import
+ * </pre>
+ *
+ * Every user's password is --password, so LoadDriver can log in as any of
+ * them (user{i}@loadtest.example).
+ */
+public class DataGenerator {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opts = LoadDriver.parse(args);
+        Path out = Path.of(opts.getOrDefault("out", "data/synthetic.ndjson"));
+        int users = Integer.parseInt(opts.getOrDefault("users", "1000"));
+        int posts = Integer.parseInt(opts.getOrDefault("posts", "20000"));
+        int communities = Integer.parseInt(opts.getOrDefault("communities", "200"));
+        int hashtags = Integer.parseInt(opts.getOrDefault("hashtags", "500"));
+        double commentsPerPost = Double.parseDouble(opts.getOrDefault("comments", "8"));
+        int maxDepth = Integer.parseInt(opts.getOrDefault("max-depth", "12"));
+        double membershipsPerUser = Double.parseDouble(opts.getOrDefault("memberships", "6"));
+        int days = Integer.parseInt(opts.getOrDefault("days", "30"));
+        double skew = Double.parseDouble(opts.getOrDefault("zipf", "1.1"));
+        String password = opts.getOrDefault("password", "loadtest");
+        Random random = new Random(Long.parseLong(opts.getOrDefault("seed", "42")));
+
+        Zipf vocabulary = new Zipf(SyntheticText.WORDS.length, 0.8, random);
+        Zipf communityRank = new Zipf(communities, skew, random);
+        Zipf hashtagRank = new Zipf(hashtags, skew, random);
+        Zipf authorRank = new Zipf(users, skew, random);
+        Zipf flagRank = new Zipf(SyntheticText.FLAGS.length, skew, random);
+
+        // comments per post: every comment picks its post by popularity
+        int[] commentCounts = new int[posts];
+        Zipf postRank = new Zipf(posts, skew, random);
+        long totalComments = Math.round(posts * commentsPerPost);
+        for (long i = 0; i < totalComments; i++)
+            commentCounts[postRank.next()]++;
+        // popular posts scattered over time rather than all being the oldest
+        shuffle(commentCounts, random);
+
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        long start = System.nanoTime();
+        long lines = 0;
+        long now = Instant.now().getEpochSecond();
+        long window = days * 24L * 3600;
+
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for (int u = 0; u < users; u++) {
+                w.write("{\"type\":\"user\",\"ref\":\"u" + u + "\",\"name\":\"user" + u + "\",\"email\":"
+                        + json(SyntheticText.userEmail(u)) + ",\"password\":" + json(password) + "}\n");
+                lines++;
+            }
+
+            long commentRef = 0;
+            for (int p = 0; p < posts; p++) {
+                long createdAt = now - (long) (random.nextDouble() * window);
+                StringBuilder tags = new StringBuilder();
+                int tagCount = random.nextInt(5);
+                for (int t = 0; t < tagCount; t++)
+                    tags.append(t > 0 ? " @" : "@").append(SyntheticText.hashtagName(hashtagRank.next()));
+                w.write("{\"type\":\"post\",\"ref\":\"p" + p + "\",\"title\":"
+                        + json(SyntheticText.words(random, vocabulary, 4, 10))
+                        + ",\"body\":" + json(SyntheticText.words(random, vocabulary, 20, 120))
+                        + ",\"author\":\"u" + authorRank.next() + "\""
+                        + ",\"hashtags\":" + json(tags.toString())
+                        + ",\"community\":" + json(SyntheticText.communityName(communityRank.next()))
+                        + ",\"flag\":" + json(SyntheticText.FLAGS[flagRank.next()])
+                        + ",\"createdAt\":\"" + Instant.ofEpochSecond(createdAt) + "\"}\n");
+                lines++;
+
+                int n = commentCounts[p];
+                int[] depth = new int[n];
+                long[] at = new long[n];
+                for (int c = 0; c < n; c++) {
+                    int parentIndex = -1;
+                    if (c > 0 && random.nextDouble() < 0.65)
+                        parentIndex = random.nextBoolean() ? c - 1 : random.nextInt(c);
+                    if (parentIndex >= 0 && depth[parentIndex] + 1 >= maxDepth)
+                        parentIndex = -1;
+                    depth[c] = parentIndex < 0 ? 0 : depth[parentIndex] + 1;
+                    // replies follow their parent by minutes to hours
+                    long after = parentIndex < 0 ? createdAt : at[parentIndex];
+                    at[c] = Math.min(now, after + (long) (-Math.log(1 - random.nextDouble()) * 3 * 3600));
+                    long ref = commentRef + c;
+                    w.write("{\"type\":\"comment\",\"ref\":\"c" + ref + "\",\"post\":\"p" + p + "\""
+                            + (parentIndex < 0 ? "" : ",\"parent\":\"c" + (commentRef + parentIndex) + "\"")
+                            + ",\"author\":\"u" + authorRank.next() + "\""
+                            + ",\"body\":" + json(SyntheticText.words(random, vocabulary, 3, 40))
+                            + ",\"createdAt\":\"" + Instant.ofEpochSecond(at[c]) + "\"}\n");
+                    lines++;
+                }
+                commentRef += n;
+            }
+
+            // memberships last: the communities are created by the posts above
+            for (int u = 0; u < users; u++) {
+                int joins = (int) Math.round(-Math.log(1 - random.nextDouble()) * membershipsPerUser);
+                Set<Integer> joined = new HashSet<>();
+                for (int j = 0; j < joins && joined.size() < communities; j++) {
+                    int community = communityRank.next();
+                    if (joined.add(community)) {
+                        w.write("{\"type\":\"membership\",\"user\":\"u" + u + "\",\"community\":"
+                                + json(SyntheticText.communityName(community)) + "}\n");
+                        lines++;
+                    }
+                }
+            }
+        }
+
+        System.out.printf("wrote %d lines (%d users, %d posts, %d comments) to %s in %.1f s%n", lines, users, posts,
+                totalComments, out, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void shuffle(int[] a, Random random) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+
+    static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo_springboot.loadtest;
+
+import java.io.PrintStream;
+
+/**
+ * Prints exact percentiles of sorted latency samples (nanoseconds) and a
+ * histogram over doubling buckets from 0.25 ms, so a bimodal distribution
+ * (cache hits vs database, or requests queued behind a pool) shows up
+ * where percentiles alone would hide it.
+ */
+final class LatencyHistogram {
+
+    private static final int BAR_WIDTH = 40;
+    private static final double FIRST_BUCKET_MS = 0.25;
+    private static final int BUCKETS = 16;
+
+    private LatencyHistogram() {
+    }
+
+    static void print(long[] sorted, PrintStream out) {
+        if (sorted.length == 0)
+            return;
+        out.printf("        latency ms  p50=%.1f  p90=%.1f  p99=%.1f  p99.9=%.1f  max=%.1f%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                sorted[sorted.length - 1] / 1e6);
+
+        // bucket i holds (upper(i-1), upper(i)]; the last one everything above
+        long[] counts = new long[BUCKETS];
+        for (long nanos : sorted) {
+            double ms = nanos / 1e6;
+            int i = 0;
+            while (i < BUCKETS - 1 && ms > FIRST_BUCKET_MS * (1L << i))
+                i++;
+            counts[i]++;
+        }
+        long max = 0;
+        for (long c : counts)
+            max = Math.max(max, c);
+        int first = 0, last = BUCKETS - 1;
+        while (counts[first] == 0)
+            first++;
+        while (counts[last] == 0)
+            last--;
+        for (int i = first; i <= last; i++) {
+            String label = i == BUCKETS - 1
+                    ? String.format(">%.0f ms", FIRST_BUCKET_MS * (1L << (i - 1)))
+                    : String.format("<=%.2f ms", FIRST_BUCKET_MS * (1L << i));
+            int bar = (int) Math.round(counts[i] * (double) BAR_WIDTH / max);
+            out.printf("        %12s %8d %6.2f%% %s%n", label, counts[i], 100.0 * counts[i] / sorted.length,
+                    "#".repeat(bar));
+        }
+    }
+
+    static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
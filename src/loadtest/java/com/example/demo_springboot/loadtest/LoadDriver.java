@@ -0,0 +1,302 @@
+package com.example.demo_springboot.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load driver: {@code concurrency} virtual threads each send
+ * requests back to back for {@code seconds}, every request drawn from a
+ * weighted mix of endpoints, then the driver prints per-endpoint
+ * throughput, status codes, latency percentiles and a latency histogram.
+ * The first {@code warmup} seconds are not counted.
+ *
+ * <pre>
+ * ./gradlew loadTest -Pargs="--concurrency=200 --seconds=60 --mix=feed:40,hot:10,search:20,thread:20,post:5,login:3,create:2"
+ * ./gradlew loadTest -Pargs="--path=/api/posts?limit=20 --concurrency=400 --seconds=30"
+ * </pre>
+ *
+ * Endpoints: feed (GET /api/posts keyset page, half of them in a community),
+ * hot (sort=hot), search (one or two vocabulary words), thread
+ * (GET /api/posts/{id}/thread), post (GET /api/posts/{id}), login
+ * (POST /api/auth/login as user{i}@loadtest.example, i &lt; --users) and
+ * create (POST /api/posts). Post and community ids are discovered from the
+ * feed before the run and picked with a Zipfian skew toward the newest, so
+ * load against a DataGenerator data set looks like real traffic.
+ *
+ * To compare execution modes, start the app with the {@code slowdb} profile
+ * once with and once without {@code spring.threads.virtual.enabled=true} and
+ * run the same driver against both.
+ */
+public class LoadDriver {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern POST_ID = Pattern.compile("\"id\":(\\d+),\"title\"");
+    private static final Pattern COMMUNITY_ID = Pattern.compile("\"id\":(\\d+),\"name\"");
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\":\"([^\"]+)\"");
+    private static final String DEFAULT_MIX = "feed:40,hot:10,search:20,thread:20,post:5,login:3,create:2";
+
+    enum Endpoint {
+        FEED, HOT, SEARCH, THREAD, POST, LOGIN, CREATE, PATH
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        String baseUrl = opts.getOrDefault("url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "200"));
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "5"));
+        int users = Integer.parseInt(opts.getOrDefault("users", "0"));
+        String password = opts.getOrDefault("password", "loadtest");
+        int discover = Integer.parseInt(opts.getOrDefault("discover", "2000"));
+        String path = opts.get("path");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = login(client, baseUrl);
+
+        Map<Endpoint, Integer> mix = path != null ? Map.of(Endpoint.PATH, 1) : parseMix(opts.getOrDefault("mix", DEFAULT_MIX));
+        List<Long> postIds = new ArrayList<>();
+        List<Long> communityIds = new ArrayList<>();
+        if (path == null) {
+            discover(client, baseUrl, token, discover, postIds, communityIds);
+            System.out.printf("discovered %d posts and %d communities%n", postIds.size(), communityIds.size());
+            if (postIds.isEmpty() && (mix.remove(Endpoint.THREAD) != null | mix.remove(Endpoint.POST) != null))
+                System.out.println("no posts yet: thread and post requests dropped from the mix");
+        }
+        Target target = new Target(baseUrl, token, path, users, password, postIds, communityIds);
+
+        Endpoint[] endpoints = mix.keySet().toArray(new Endpoint[0]);
+        int[] cumulative = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++)
+            cumulative[i] = total += mix.get(endpoints[i]);
+        if (total <= 0)
+            throw new IllegalArgumentException("empty mix");
+        int totalWeight = total;
+
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(warmup).toNanos();
+        long deadline = measureFrom + Duration.ofSeconds(seconds).toNanos();
+        List<long[][]> perWorker = Collections.synchronizedList(new ArrayList<>());
+        List<int[]> perWorkerCounts = Collections.synchronizedList(new ArrayList<>());
+        Map<Endpoint, Map<Integer, AtomicLong>> statuses = new ConcurrentHashMap<>();
+        Map<Endpoint, AtomicInteger> errors = new ConcurrentHashMap<>();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.submit(() -> {
+                    long[][] latencies = new long[Endpoint.values().length][256];
+                    int[] counts = new int[Endpoint.values().length];
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long start;
+                    while ((start = System.nanoTime()) < deadline) {
+                        int pick = random.nextInt(totalWeight);
+                        int e = 0;
+                        while (cumulative[e] <= pick)
+                            e++;
+                        Endpoint endpoint = endpoints[e];
+                        boolean ok = true;
+                        int status = 0;
+                        try {
+                            HttpResponse<Void> response = client.send(target.request(endpoint, random),
+                                    HttpResponse.BodyHandlers.discarding());
+                            status = response.statusCode();
+                        } catch (Exception ex) {
+                            ok = false;
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        if (start < measureFrom)
+                            continue;
+                        if (ok)
+                            statuses.computeIfAbsent(endpoint, k -> new ConcurrentHashMap<>())
+                                    .computeIfAbsent(status, k -> new AtomicLong()).incrementAndGet();
+                        else
+                            errors.computeIfAbsent(endpoint, k -> new AtomicInteger()).incrementAndGet();
+                        int i = endpoint.ordinal();
+                        if (counts[i] == latencies[i].length)
+                            latencies[i] = Arrays.copyOf(latencies[i], counts[i] * 2);
+                        latencies[i][counts[i]++] = elapsed;
+                    }
+                    perWorker.add(latencies);
+                    perWorkerCounts.add(counts);
+                });
+            }
+        }
+
+        System.out.printf("%s  concurrency=%d  duration=%ds (+%ds warmup)%n", baseUrl, concurrency, seconds, warmup);
+        List<long[]> everything = new ArrayList<>();
+        for (Endpoint endpoint : Endpoint.values()) {
+            List<long[]> parts = new ArrayList<>();
+            for (int w = 0; w < perWorker.size(); w++)
+                parts.add(Arrays.copyOf(perWorker.get(w)[endpoint.ordinal()], perWorkerCounts.get(w)[endpoint.ordinal()]));
+            long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            if (all.length == 0 && !errors.containsKey(endpoint))
+                continue;
+            everything.add(all);
+            System.out.println();
+            System.out.printf("%-7s requests=%d  throughput=%.1f req/s  errors=%d  statuses=%s%n",
+                    endpoint.name().toLowerCase(), all.length, all.length / (double) seconds,
+                    errors.getOrDefault(endpoint, new AtomicInteger()).get(),
+                    statuses.getOrDefault(endpoint, Map.of()));
+            LatencyHistogram.print(all, System.out);
+        }
+        long[] combined = everything.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.println();
+        System.out.printf("all     requests=%d  throughput=%.1f req/s%n", combined.length, combined.length / (double) seconds);
+        LatencyHistogram.print(combined, System.out);
+    }
+
+    /**
+     * Builds the next request for an endpoint; ids are drawn with a skew
+     * toward the front of the discovered lists (newest posts).
+     */
+    private record Target(String baseUrl, String token, String path, int users, String password,
+            List<Long> postIds, List<Long> communityIds) {
+
+        HttpRequest request(Endpoint endpoint, Random random) {
+            return switch (endpoint) {
+                case FEED -> {
+                    String q = "/api/posts?limit=20";
+                    if (!communityIds.isEmpty() && random.nextBoolean())
+                        q += "&communityId=" + skewed(communityIds, random);
+                    yield get(q);
+                }
+                case HOT -> get("/api/posts?sort=hot&limit=20");
+                case SEARCH -> {
+                    String q = SyntheticText.WORDS[random.nextInt(SyntheticText.WORDS.length)];
+                    if (random.nextBoolean())
+                        q += " " + SyntheticText.WORDS[random.nextInt(SyntheticText.WORDS.length)];
+                    yield get("/api/search?q=" + URLEncoder.encode(q, StandardCharsets.UTF_8));
+                }
+                case THREAD -> get("/api/posts/" + skewed(postIds, random) + "/thread?depth=5&limit=50");
+                case POST -> get("/api/posts/" + skewed(postIds, random));
+                case LOGIN -> {
+                    String body = users > 0
+                            ? "{\"email\":\"" + SyntheticText.userEmail(random.nextInt(users)) + "\",\"password\":\""
+                                    + password + "\"}"
+                            : "{\"email\":\"loadtest@example.com\",\"password\":\"loadtest\"}";
+                    yield HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                            .header("Content-Type", "application/json")
+                            .timeout(Duration.ofSeconds(30))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                }
+                case CREATE -> {
+                    String community = SyntheticText.communityName(random.nextInt(Math.max(1, communityIds.size())));
+                    String body = "{\"title\":\"load test " + random.nextInt(1_000_000) + "\",\"body\":\"posted by "
+                            + "the load driver\",\"hashtags\":\"@loadtest\",\"community\":\"" + community + "\"}";
+                    yield HttpRequest.newBuilder(URI.create(baseUrl + "/api/posts"))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "application/json")
+                            .timeout(Duration.ofSeconds(30))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                }
+                case PATH -> get(path);
+            };
+        }
+
+        private HttpRequest get(String pathAndQuery) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+        }
+
+        // rank ~ n * u^3: the first tenth of the list gets about half of the picks
+        private static long skewed(List<Long> ids, Random random) {
+            double u = random.nextDouble();
+            return ids.get((int) (ids.size() * u * u * u));
+        }
+    }
+
+    private static void discover(HttpClient client, String baseUrl, String token, int maxPosts,
+            List<Long> postIds, List<Long> communityIds) throws Exception {
+        String cursor = null;
+        while (postIds.size() < maxPosts) {
+            String url = baseUrl + "/api/posts?limit=100" + (cursor == null ? "" : "&cursor=" + cursor);
+            String body = get(client, url, token);
+            Matcher ids = POST_ID.matcher(body);
+            int before = postIds.size();
+            while (ids.find())
+                postIds.add(Long.parseLong(ids.group(1)));
+            Matcher next = NEXT_CURSOR.matcher(body);
+            if (postIds.size() == before || !next.find())
+                break;
+            cursor = URLEncoder.encode(next.group(1), StandardCharsets.UTF_8);
+        }
+        Matcher ids = COMMUNITY_ID.matcher(get(client, baseUrl + "/api/communities", token));
+        while (ids.find())
+            communityIds.add(Long.parseLong(ids.group(1)));
+    }
+
+    private static String login(HttpClient client, String baseUrl) throws Exception {
+        String credentials = "{\"name\":\"loadtest\",\"email\":\"loadtest@example.com\",\"password\":\"loadtest\"}";
+        // register is a no-op when the user already exists
+        post(client, baseUrl + "/api/auth/register", credentials);
+        String body = post(client, baseUrl + "/api/auth/login", credentials);
+        Matcher m = TOKEN.matcher(body);
+        if (!m.find())
+            throw new IllegalStateException("login failed: " + body);
+        return m.group(1);
+    }
+
+    private static String get(HttpClient client, String url, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static String post(HttpClient client, String url, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2)
+                throw new IllegalArgumentException("expected endpoint:weight, got " + part);
+            Endpoint endpoint = Endpoint.valueOf(kv[0].trim().toUpperCase(Locale.ROOT));
+            if (endpoint == Endpoint.PATH)
+                throw new IllegalArgumentException("use --path for a single path");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0)
+                mix.put(endpoint, weight);
+        }
+        return mix;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            int eq = arg.indexOf('=');
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo_springboot.loadtest;
+
+import java.util.Random;
+
+/**
+ * Vocabulary shared by DataGenerator and LoadDriver, so search queries in a
+ * load test hit words that exist in the generated posts.
+ */
+final class SyntheticText {
+
+    static final String[] WORDS = { "spring", "boot", "java", "react", "docker", "kubernetes", "mysql", "index",
+            "cache", "thread", "latency", "query", "feed", "comment", "hashtag", "community", "deploy", "gradle",
+            "jwt", "token", "stream", "virtual", "lucene", "search", "ranking", "pagination", "kafka", "redis",
+            "postgres", "hibernate", "jpa", "transaction", "lock", "memory", "heap", "profiler", "benchmark",
+            "release", "bug", "feature", "review", "test", "throughput", "replica", "shard", "queue",
+            "batch", "schema", "migration", "api", "frontend", "backend", "css", "typescript", "rust", "golang" };
+
+    static final String[] FLAGS = { "question", "discussion", "news", "showcase", "help", "meta" };
+
+    private SyntheticText() {
+    }
+
+    static String words(Random random, Zipf vocabulary, int min, int max) {
+        int n = min + random.nextInt(max - min + 1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                sb.append(' ');
+            sb.append(WORDS[vocabulary.next()]);
+        }
+        return sb.toString();
+    }
+
+    static String communityName(int rank) {
+        return WORDS[rank % WORDS.length] + "-" + rank;
+    }
+
+    static String hashtagName(int rank) {
+        return WORDS[rank % WORDS.length] + (rank < WORDS.length ? "" : Integer.toString(rank / WORDS.length));
+    }
+
+    static String userEmail(int i) {
+        return "user" + i + "@loadtest.example";
+    }
+}
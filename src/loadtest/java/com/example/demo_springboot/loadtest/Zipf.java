@@ -0,0 +1,34 @@
+package com.example.demo_springboot.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks 0..n-1 with P(k) proportional to 1 / (k + 1)^s, from a
+ * precomputed CDF (O(log n) per sample). s around 1 gives the usual long
+ * tail: a few communities, tags, authors and posts take most of the traffic.
+ */
+final class Zipf {
+
+    private final double[] cdf;
+    private final Random random;
+
+    Zipf(int n, double s, Random random) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n must be positive");
+        this.cdf = new double[n];
+        this.random = random;
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++)
+            cdf[k] /= sum;
+    }
+
+    int next() {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+    }
+}
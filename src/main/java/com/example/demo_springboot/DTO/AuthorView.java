@@ -0,0 +1,11 @@
+package com.example.demo_springboot.DTO;
+
+public record AuthorView(Long id, String name) {
+
+    /**
+     * Null when the row has no author (left join produced no match).
+     */
+    public static AuthorView of(Long id, String name) {
+        return id == null ? null : new AuthorView(id, name);
+    }
+}
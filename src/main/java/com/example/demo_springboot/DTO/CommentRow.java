@@ -0,0 +1,11 @@
+package com.example.demo_springboot.DTO;
+
+import java.time.Instant;
+
+/**
+ * Flat projection of a comment and its author, populated directly by JPQL
+ * constructor expressions in CommentRepository.
+ */
+public record CommentRow(Long id, Long postId, Long parentId, String body, Instant createdAt,
+        Long authorId, String authorName, int replyCount, String path, int depth) {
+}
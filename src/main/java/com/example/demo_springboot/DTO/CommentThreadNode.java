@@ -0,0 +1,13 @@
+package com.example.demo_springboot.DTO;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.List;
+
+/**
+ * A comment plus its nested replies in GET /api/posts/{id}/thread. The
+ * comment's fields are written inline, next to replies/hasMoreReplies.
+ */
+public record CommentThreadNode(@JsonUnwrapped CommentView comment, List<CommentThreadNode> replies,
+        boolean hasMoreReplies) {
+}
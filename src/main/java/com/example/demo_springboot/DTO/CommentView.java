@@ -0,0 +1,19 @@
+package com.example.demo_springboot.DTO;
+
+import java.time.Instant;
+
+/**
+ * Comment as returned by the comment list endpoints.
+ */
+public record CommentView(Long id, Long postId, Long parentId, String body, Instant createdAt,
+        AuthorView author, int replyCount) {
+
+    public static CommentView from(CommentRow row) {
+        return from(row, row.replyCount());
+    }
+
+    public static CommentView from(CommentRow row, int replyCount) {
+        return new CommentView(row.id(), row.postId(), row.parentId(), row.body(), row.createdAt(),
+                AuthorView.of(row.authorId(), row.authorName()), replyCount);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo_springboot.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * memberCount is only filled where communities are listed; a post's
+ * community leaves it out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CommunityView(Long id, String name, Integer memberCount) {
+
+    public static CommunityView of(Long id, String name) {
+        return id == null ? null : new CommunityView(id, name, null);
+    }
+}
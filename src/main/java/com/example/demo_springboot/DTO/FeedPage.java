@@ -0,0 +1,9 @@
+package com.example.demo_springboot.DTO;
+
+import java.util.List;
+
+/**
+ * One keyset page of posts; pass nextCursor back to get the next page.
+ */
+public record FeedPage(List<PostView> content, String nextCursor, boolean hasNext) {
+}
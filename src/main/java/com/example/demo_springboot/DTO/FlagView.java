@@ -0,0 +1,8 @@
+package com.example.demo_springboot.DTO;
+
+public record FlagView(Long id, String name) {
+
+    public static FlagView of(Long id, String name) {
+        return id == null ? null : new FlagView(id, name);
+    }
+}
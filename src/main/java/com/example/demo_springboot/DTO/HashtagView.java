@@ -0,0 +1,4 @@
+package com.example.demo_springboot.DTO;
+
+public record HashtagView(Long id, String name) {
+}
@@ -0,0 +1,7 @@
+package com.example.demo_springboot.DTO;
+
+/**
+ * One (post, hashtag) pair from the posts_hashtags join, loaded per page.
+ */
+public record PostHashtagRow(Long postId, Long hashtagId, String hashtagName) {
+}
@@ -0,0 +1,14 @@
+package com.example.demo_springboot.DTO;
+
+import java.time.Instant;
+
+/**
+ * Flat projection of a post and its to-one associations, populated directly
+ * by JPQL constructor expressions in PostRepository (no entity hydration).
+ */
+public record PostRow(Long id, String title, String body, Instant createdAt,
+        Long authorId, String authorName,
+        Long communityId, String communityName,
+        Long flagId, String flagName,
+        int commentCount) {
+}
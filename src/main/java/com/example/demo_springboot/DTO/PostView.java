@@ -0,0 +1,21 @@
+package com.example.demo_springboot.DTO;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Post as returned by the feed, search and post endpoints.
+ */
+public record PostView(Long id, String title, String body, Instant createdAt,
+        AuthorView author, List<HashtagView> hashtags, CommunityView community, FlagView flag,
+        int commentCount) {
+
+    public static PostView from(PostRow row, List<HashtagView> hashtags) {
+        return new PostView(row.id(), row.title(), row.body(), row.createdAt(),
+                AuthorView.of(row.authorId(), row.authorName()),
+                hashtags,
+                CommunityView.of(row.communityId(), row.communityName()),
+                FlagView.of(row.flagId(), row.flagName()),
+                row.commentCount());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo_springboot.DTO;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * One comment of a flattened subtree, with its depth relative to the root.
+ */
+public record SubtreeEntry(@JsonUnwrapped CommentView comment, int depth) {
+}
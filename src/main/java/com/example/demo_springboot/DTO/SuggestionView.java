@@ -0,0 +1,7 @@
+package com.example.demo_springboot.DTO;
+
+/**
+ * Typeahead suggestion; count is members for a community, posts for a hashtag.
+ */
+public record SuggestionView(Long id, String name, long count) {
+}
@@ -0,0 +1,8 @@
+package com.example.demo_springboot.DTO;
+
+/**
+ * A trending hashtag; uses is the number of posts tagged with it inside the
+ * trending window.
+ */
+public record TrendingHashtagView(Long id, String name, long uses) {
+}
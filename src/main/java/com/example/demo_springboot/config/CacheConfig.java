@@ -0,0 +1,42 @@
+package com.example.demo_springboot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caffeine caches for the reference tables (communities, flags, hashtags)
+ * that are read on every feed/compose screen but change rarely. The caches
+ * are declared up front so actuator binds their hit/miss statistics as
+ * cache.gets / cache.puts / cache.evictions at startup.
+ * <p>
+ * Puts and evictions made inside a transaction wait for it to commit.
+ * Otherwise a reader could re-cache a row, such as a community's
+ * memberCount, between the eviction and the commit, and keep serving the
+ * old value until the entry expires.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String COMMUNITIES = "communities";
+    public static final String COMMUNITY_SEARCH = "communitySearch";
+    public static final String COMMUNITY_BY_NAME = "communityByName";
+    public static final String FLAGS = "flags";
+    public static final String FLAG_BY_NAME = "flagByName";
+    public static final String HASHTAG_BY_NAME = "hashtagByName";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cache.reference.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                COMMUNITIES, COMMUNITY_SEARCH, COMMUNITY_BY_NAME, FLAGS, FLAG_BY_NAME, HASHTAG_BY_NAME);
+        // recordStats in the spec is what feeds the hit/miss metrics
+        cacheManager.setCacheSpecification(spec);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo_springboot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+
+    /**
+     * Pins the semantics of the id_sequences table: next_val is always the
+     * next free id and a block of n ids is [next_val, next_val + n).
+     * Hibernate's table generators and IdSequences both reserve blocks this
+     * way, so they can share the same rows without handing out an id twice.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer idGeneratorProperties() {
+        return properties -> {
+            properties.put("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+            properties.put("hibernate.id.generator.stored_last_used", "false");
+        };
+    }
+
+    /**
+     * JDBC batching for entities with pooled ids (Post, Comment, User).
+     * Ordering groups statements per table so a flush of mixed entities still
+     * turns into a few large batches. Entities on IDENTITY are never batched.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer batchingProperties(
+            @Value("${app.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.put("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+            properties.put("hibernate.order_inserts", "true");
+            properties.put("hibernate.order_updates", "true");
+        };
+    }
+}
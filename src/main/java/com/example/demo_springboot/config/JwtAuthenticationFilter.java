@@ -1,50 +1,79 @@
 package com.example.demo_springboot.config;
 
-import com.example.demo_springboot.service.AuthService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.example.demo_springboot.service.TokenService;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.Date;
-import java.util.Map;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private AuthService authService;
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    private final String SECRET_STRING;
-    private final SecretKey SECRET_KEY;
+    // stateless, safe to share across requests
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
+    // upper bound on how long a verified token is trusted without re-checking it
+    private static final long MAX_CACHE_TTL_NANOS = Duration.ofMinutes(10).toNanos();
+
+    private final TokenService tokenService;
+
+    // Verified tokens keyed by SHA-256 of the raw token, so repeated requests
+    // from the same session skip signature verification and claim decoding.
+    // Entries expire with the token itself.
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    // jwt.verify, by whether the signature had to be checked
+    private final Timer cacheHits;
+    private final Timer cacheMisses;
+    private final Timer failures;
 
-    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-    
     @Autowired
-    public JwtAuthenticationFilter(AuthService authService, @Value("${jwt.secret}") String secretString) {
-        this.authService = authService;
-        this.SECRET_STRING = secretString;
-        byte[] keyBytes = Decoders.BASE64.decode(secretString);
-        this.SECRET_KEY = Keys.hmacShaKeyFor(keyBytes);
+    public JwtAuthenticationFilter(TokenService tokenService,
+            @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+            MeterRegistry meterRegistry) {
+        this.tokenService = tokenService;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+        this.cacheHits = verifyTimer(meterRegistry, "hit", "success");
+        this.cacheMisses = verifyTimer(meterRegistry, "miss", "success");
+        this.failures = verifyTimer(meterRegistry, "miss", "failure");
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String cache, String outcome) {
+        return Timer.builder("jwt.verify")
+                .description("Bearer token verification, including the verified-token cache lookup")
+                .tag("cache", cache)
+                .tag("outcome", outcome)
+                .register(registry);
     }
 
     @Override
@@ -53,14 +82,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return path.startsWith("/api/auth");
     }
 
+    // The event stream finishes on an async re-dispatch. Nothing carries the
+    // stateless authentication over to it, so the token is checked again
+    // (normally a verified-token cache hit) and the same rules apply.
     @Override
-    protected void doFilterInternal(HttpServletRequest request, 
-                                    HttpServletResponse response, 
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
-    
-
         String authHeader = request.getHeader("Authorization");
 
         // ✅ No token → just continue (SecurityConfig will block if needed)
@@ -72,30 +107,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(SECRET_KEY)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            String username = claims.getSubject();
-            String role = claims.get("role", String.class);
+            VerifiedToken verified = verify(token);
 
             UsernamePasswordAuthenticationToken authToken =
                     new UsernamePasswordAuthenticationToken(
-                            username,
+                            verified.username(),
                             null,
-                            Collections.singletonList(new SimpleGrantedAuthority(role))
+                            Collections.singletonList(new SimpleGrantedAuthority(verified.role()))
                     );
 
-            authToken.setDetails(
-                    new WebAuthenticationDetailsSource().buildDetails(request)
-            );
+            authToken.setDetails(DETAILS_SOURCE.buildDetails(request));
 
             SecurityContextHolder.getContext().setAuthentication(authToken);
 
         } catch (Exception e) {
-            logger.error("JWT validation failed", e);
+            log.error("JWT validation failed", e);
+            // a token that expired while an event stream was open: the
+            // response is already under way and can only be ended
+            if (response.isCommitted())
+                return;
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             response.getWriter().write("Invalid or expired token");
             return;
@@ -104,25 +134,70 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private void setAuthentication(HttpServletRequest request, String jwt, String role) {
-        // Extract username/email from token
-        String username = Jwts.parser()
-                .verifyWith(SECRET_KEY)
-                .build()
-                .parseSignedClaims(jwt)
-                .getPayload()
-                .getSubject();
-
-        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                username,
-                null,
-                Collections.singletonList(new SimpleGrantedAuthority(role)));
-        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(authToken);
+    private VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        String key = sha256(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            record(cacheHits, start);
+            return cached;
+        }
+
+        try {
+            Claims claims = tokenService.parse(token);
+            long expiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+            VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.get("role", String.class), expiresAt);
+            verifiedTokens.put(key, verified);
+            record(cacheMisses, start);
+            return verified;
+        } catch (RuntimeException e) {
+            record(failures, start);
+            throw e;
+        }
+    }
+
+    private static void record(Timer timer, long start) {
+        long nanos = System.nanoTime() - start;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        RequestStats stats = RequestStats.current();
+        if (stats != null)
+            stats.authNanos += nanos;
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_STRING);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record VerifiedToken(String username, String role, long expiresAtMillis) {
+    }
+
+    /**
+     * Expire each cache entry when its token expires (capped at MAX_CACHE_TTL_NANOS).
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            if (remainingMillis <= 0)
+                return 0;
+            // TimeUnit conversion saturates instead of overflowing for far-future expiries
+            return Math.min(TimeUnit.MILLISECONDS.toNanos(remainingMillis), MAX_CACHE_TTL_NANOS);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.example.demo_springboot.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Latency distributions for the request path: per-endpoint request timers
+ * (http.server.requests, tagged by uri template), JWT verification, and the
+ * JDBC work of each request (db.request.statements / db.request.time, see
+ * RequestMetricsFilter). Each gets a percentile histogram for a monitoring
+ * backend and p50/p95/p99 gauges readable from /actuator/metrics.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final Set<String> LATENCY_METERS = Set.of(
+            "http.server.requests", "jwt.verify", "db.request.time");
+    private static final String STATEMENT_COUNT_METER = "db.request.statements";
+
+    // bean name of the DataSource given to JPA and JdbcTemplate, with or without a replica
+    static final String APPLICATION_DATA_SOURCE = "dataSource";
+
+    @Bean
+    public MeterFilter latencyDistributions() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (LATENCY_METERS.contains(id.getName())) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(0.5, 0.95, 0.99)
+                            .build()
+                            .merge(config);
+                }
+                if (STATEMENT_COUNT_METER.equals(id.getName())) {
+                    // without bounds a summary histogram spans 1..Long.MAX_VALUE
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(0.5, 0.95, 0.99)
+                            .minimumExpectedValue(1.0)
+                            .maximumExpectedValue(1000.0)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+
+    /**
+     * Wraps the DataSource so each statement execution inside an API request
+     * is counted and timed into that request's RequestStats. An executeBatch
+     * counts once, as one round trip. Time is execution only; reading the
+     * result set afterwards is not included.
+     */
+    @Bean
+    public static BeanPostProcessor statementMetricsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // only the DataSource the application uses, not the pools behind a replica router
+                if (bean instanceof DataSource dataSource && APPLICATION_DATA_SOURCE.equals(beanName))
+                    return proxy(DataSource.class, dataSource);
+                return bean;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            RequestStats stats = target instanceof Statement && method.getName().startsWith("execute")
+                    ? RequestStats.current()
+                    : null;
+            long start = stats == null ? 0 : System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (stats != null) {
+                    stats.statements++;
+                    stats.statementNanos += System.nanoTime() - start;
+                }
+            }
+            // wrap connections and statements so their executions are seen too
+            if (result instanceof Connection c && method.getReturnType() == Connection.class)
+                return proxy(Connection.class, c);
+            if (result instanceof Statement s && Statement.class.isAssignableFrom(method.getReturnType()))
+                return proxy((Class<Statement>) method.getReturnType(), s);
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo_springboot.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the
+ * primary. The decision is made when a connection is fetched, so this has
+ * to sit behind a LazyConnectionDataSourceProxy: the transaction's
+ * read-only flag is only published after the transaction manager has asked
+ * for its connection.
+ *
+ * Read-your-writes: once a transaction of an authenticated user commits on
+ * the primary, that user's read-only transactions stay on the primary for
+ * the sticky window, which should cover the usual replication lag. Other
+ * users keep reading from the replica and may see the write a little later.
+ * Work outside a transaction, and writes with no user (background jobs,
+ * the write-behind pipeline), always use the primary and make no one sticky.
+ *
+ * Requests that answer with an ETag read from the primary too (see
+ * PRIMARY_READS), whoever sends them.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    /**
+     * Request attribute that keeps all of a request's reads on the primary.
+     * Set by endpoints whose ETag comes from ResourceVersions: the version is
+     * bumped when a write commits on the primary, so a body read from a
+     * lagging replica would be cached under the new ETag and revalidate as
+     * current until the next write.
+     */
+    public static final String PRIMARY_READS = ReplicaRoutingDataSource.class.getName() + ".PRIMARY_READS";
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration stickyFor) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyFor)
+                .maximumSize(100_000)
+                .build();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+            return Target.PRIMARY;
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isSynchronizationActive())
+                stickAfterCommit(user);
+            return Target.PRIMARY;
+        }
+        if (primaryReadsRequested())
+            return Target.PRIMARY;
+        if (user != null && recentWriters.getIfPresent(user) != null)
+            return Target.PRIMARY;
+        return Target.REPLICA;
+    }
+
+    private void stickAfterCommit(String user) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // the window starts at commit, when replication of the write starts
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static boolean primaryReadsRequested() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(PRIMARY_READS, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken)
+            return null;
+        return auth.getName();
+    }
+}
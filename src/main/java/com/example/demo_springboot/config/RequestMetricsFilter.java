@@ -0,0 +1,119 @@
+package com.example.demo_springboot.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breaks API request time down into JDBC and JWT work. For every request
+ * the number of statements and the time spent executing them are recorded
+ * as db.request.statements and db.request.time, tagged like
+ * http.server.requests (method, uri template), so a slow endpoint can be
+ * compared against its own query count. Whatever the request timer has on
+ * top of JDBC and JWT time is controller, service and serialization work.
+ *
+ * Requests slower than {@code app.metrics.slow-request-ms} are logged with
+ * their breakdown. Runs ahead of the concurrency limiter, so time spent
+ * waiting for a permit counts towards the total.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    private final MeterRegistry registry;
+    private final long slowRequestNanos;
+
+    public RequestMetricsFilter(MeterRegistry registry,
+            @Value("${app.metrics.slow-request-ms:500}") long slowRequestMs) {
+        this.registry = registry;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMs);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // the event stream is open for minutes by design
+        return !request.getServletPath().startsWith("/api/") || request.getServletPath().equals("/api/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestStats stats = RequestStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStats.end();
+            if (request.isAsyncStarted()) {
+                // streamed bodies finish on another thread; the queries ran before
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response, stats, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, response, stats, start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, RequestStats stats, long start) {
+        long elapsed = System.nanoTime() - start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // unmatched paths share one tag, so scanners cannot blow up the series count
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString());
+        DistributionSummary.builder("db.request.statements")
+                .description("JDBC statements executed per API request")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(registry)
+                .record(stats.statements);
+        Timer.builder("db.request.time")
+                .description("Time per API request spent executing JDBC statements")
+                .tags(tags)
+                .register(registry)
+                .record(stats.statementNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsed >= slowRequestNanos) {
+            String query = request.getQueryString();
+            log.warn("Slow request {} {}{} -> {} in {} ms: {} statements, {} ms in JDBC, {} ms verifying JWT",
+                    request.getMethod(), request.getRequestURI(), query == null ? "" : "?" + query,
+                    response.getStatus(), TimeUnit.NANOSECONDS.toMillis(elapsed), stats.statements,
+                    TimeUnit.NANOSECONDS.toMillis(stats.statementNanos),
+                    TimeUnit.NANOSECONDS.toMillis(stats.authNanos));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo_springboot.config;
+
+/**
+ * Where one API request spent time outside its own code: JDBC statements
+ * and their execution time, and JWT verification. Bound to the request
+ * thread by RequestMetricsFilter; statements run on other threads
+ * (write-behind flushes, scheduled jobs, streamed response bodies) find no
+ * stats and are not counted.
+ *
+ * Fields are only written by the request thread, so they need no
+ * synchronization.
+ */
+final class RequestStats {
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    int statements;
+    long statementNanos;
+    long authNanos;
+
+    private RequestStats() {
+    }
+
+    static RequestStats begin() {
+        RequestStats stats = new RequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stats of the request running on this thread, or null outside one.
+     */
+    static RequestStats current() {
+        return CURRENT.get();
+    }
+}
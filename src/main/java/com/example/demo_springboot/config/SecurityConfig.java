@@ -36,6 +36,9 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // the role claim AuthService issues to the admin account;
+                // admin.role is that account's user name, not a role
+                .requestMatchers("/api/admin/**").hasAuthority("admin")
                 .anyRequest().authenticated()
             )
             // ✅ VERY IMPORTANT
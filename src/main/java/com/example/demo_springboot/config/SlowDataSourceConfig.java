@@ -0,0 +1,67 @@
+package com.example.demo_springboot.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Slow-database stand-in for load tests (profile {@code slowdb}). Every
+ * statement execution sleeps {@code slowdb.delay-ms} while holding its
+ * connection, which reproduces a MySQL latency spike: pool connections stay
+ * busy longer and requests start queueing for them.
+ */
+@Configuration
+@Profile("slowdb")
+public class SlowDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor slowDataSourcePostProcessor(@Value("${slowdb.delay-ms:50}") long delayMs) {
+        // ordered, so it wraps before the statement metrics proxy and the delay shows up in db.request.time
+        class SlowDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && MetricsConfig.APPLICATION_DATA_SOURCE.equals(beanName))
+                    return proxy(DataSource.class, dataSource, delayMs);
+                return bean;
+            }
+        }
+        return new SlowDataSourcePostProcessor();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, long delayMs) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (target instanceof Statement && name.startsWith("execute"))
+                Thread.sleep(delayMs);
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // wrap connections and statements so their executions are delayed too
+            if (result instanceof Connection c && method.getReturnType() == Connection.class)
+                return proxy(Connection.class, c, delayMs);
+            if (result instanceof Statement s && Statement.class.isAssignableFrom(method.getReturnType()))
+                return proxy((Class<Statement>) method.getReturnType(), s, delayMs);
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
@@ -1,8 +1,21 @@
 package com.example.demo_springboot.controller;
 
+import com.example.demo_springboot.DTO.CommentView;
+import com.example.demo_springboot.DTO.CommunityView;
+import com.example.demo_springboot.DTO.FeedPage;
+import com.example.demo_springboot.DTO.FlagView;
+import com.example.demo_springboot.DTO.PostView;
+import com.example.demo_springboot.DTO.SuggestionView;
+import com.example.demo_springboot.DTO.TrendingHashtagView;
+import com.example.demo_springboot.config.ReplicaRoutingDataSource;
 import com.example.demo_springboot.service.DashboardService;
+import com.example.demo_springboot.service.ResourceVersions;
+import com.example.demo_springboot.service.ResourceVersions.Resource;
+import com.example.demo_springboot.service.WriteBehindPipeline;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.*;
 
@@ -11,35 +24,95 @@ import java.util.*;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final WriteBehindPipeline writeBehindPipeline;
+    private final ResourceVersions resourceVersions;
 
-    public DashboardController(DashboardService dashboardService) {
+    public DashboardController(DashboardService dashboardService, WriteBehindPipeline writeBehindPipeline,
+            ResourceVersions resourceVersions) {
         this.dashboardService = dashboardService;
+        this.writeBehindPipeline = writeBehindPipeline;
+        this.resourceVersions = resourceVersions;
+    }
+
+    /**
+     * Conditional GET: sets the ETag of {@code resource} on the response and
+     * returns true when it matches If-None-Match, in which case the 304 has
+     * already been written and the handler must return null without loading
+     * anything. Otherwise the body is read from the primary, which is always
+     * at least as new as the version in the ETag.
+     */
+    private boolean notModified(ServletWebRequest request, Resource resource) {
+        // replaces Spring Security's default no-store, which keeps browsers
+        // from storing the response and so from ever sending If-None-Match
+        if (request.getResponse() != null)
+            request.getResponse().setHeader("Cache-Control", "private, no-cache");
+        request.setAttribute(ReplicaRoutingDataSource.PRIMARY_READS, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        return request.checkNotModified(resourceVersions.etag(resource));
     }
 
     // POST /api/posts
+    // with app.writes.async.enabled -> 202 {id, status: "queued"}
     @PostMapping("/posts")
-    public ResponseEntity<Map<String, Object>> createPost(@RequestBody Map<String, Object> payload) {
-        Map<String, Object> post = dashboardService.createPost(payload);
-        return ResponseEntity.ok(post);
+    public ResponseEntity<?> createPost(@RequestBody Map<String, Object> payload) {
+        try {
+            if (writeBehindPipeline.isEnabled()) {
+                long id = writeBehindPipeline.submitPost(payload);
+                return ResponseEntity.accepted().body(Map.of("id", id, "status", "queued"));
+            }
+            PostView post = dashboardService.createPost(payload);
+            return ResponseEntity.ok(post);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
     }
 
-    // GET /api/search?q=
+    // GET /api/search?q=&hashtag=&communityId=&page=0&size=20
     @GetMapping("/search")
-    public ResponseEntity<List<Map<String, Object>>> search(@RequestParam(defaultValue = "") String q) {
-        return ResponseEntity.ok(dashboardService.search(q));
+    public ResponseEntity<List<PostView>> search(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) String hashtag,
+            @RequestParam(required = false) Long communityId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(dashboardService.search(q, hashtag, communityId, page, size));
     }
 
     // GET /api/posts?communityId=123
+    // GET /api/posts?communityId=123&limit=20&cursor=... -> keyset page
+    // GET /api/posts?sort=hot&communityId=123&limit=20&cursor=... -> hot feed page
+    // {content, nextCursor, hasNext}; pass nextCursor back to get the next page
+    // ETag / If-None-Match -> 304 while no post or comment was written
     @GetMapping("/posts")
-    public ResponseEntity<List<Map<String, Object>>> getAllPosts(
-            @RequestParam(required = false) Long communityId) {
-        return ResponseEntity.ok(dashboardService.getAllPosts(communityId));
+    public ResponseEntity<?> getAllPosts(
+            @RequestParam(required = false) Long communityId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "new") String sort,
+            ServletWebRequest request) {
+        if (notModified(request, Resource.POSTS))
+            return null;
+        boolean hot = "hot".equalsIgnoreCase(sort);
+        if (!hot && cursor == null && limit == null)
+            return ResponseEntity.ok(dashboardService.getAllPosts(communityId));
+        try {
+            int pageSize = limit == null ? 20 : limit;
+            if (hot)
+                return ResponseEntity.ok(dashboardService.getHotFeed(communityId, cursor, pageSize));
+            return ResponseEntity.ok(dashboardService.getFeedPage(communityId, cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // GET /api/posts/{id}
+    // ETag / If-None-Match -> 304 while no post or comment was written
     @GetMapping("/posts/{id}")
-    public ResponseEntity<?> getPost(@PathVariable Long id) {
-        Map<String, Object> post = dashboardService.getPost(id);
+    public ResponseEntity<?> getPost(@PathVariable Long id, ServletWebRequest request) {
+        if (notModified(request, Resource.POSTS))
+            return null;
+        PostView post = dashboardService.getPost(id);
         if (post == null)
             return ResponseEntity.notFound().build();
         return ResponseEntity.ok(post);
@@ -47,45 +120,134 @@ public class DashboardController {
 
     // GET /api/posts/{id}/comments
     @GetMapping("/posts/{id}/comments")
-    public ResponseEntity<List<Map<String, Object>>> getPostComments(@PathVariable Long id) {
-        List<Map<String, Object>> list = dashboardService.getPostComments(id);
+    public ResponseEntity<List<CommentView>> getPostComments(@PathVariable Long id) {
+        List<CommentView> list = dashboardService.getPostComments(id);
         if (list == null)
             return ResponseEntity.notFound().build();
         return ResponseEntity.ok(list);
     }
 
+    // GET /api/posts/{id}/thread?depth=5&limit=50 -> whole comment tree in one call
+    @GetMapping("/posts/{id}/thread")
+    public ResponseEntity<Map<String, Object>> getPostThread(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int depth,
+            @RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> thread = dashboardService.getPostThread(id, depth, limit);
+        if (thread == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(thread);
+    }
+
     // GET /api/comments/{id}/comments -> direct children of a comment (one level)
     @GetMapping("/comments/{id}/comments")
-    public ResponseEntity<List<Map<String, Object>>> getCommentChildren(@PathVariable Long id) {
-        List<Map<String, Object>> list = dashboardService.getCommentChildren(id);
+    public ResponseEntity<List<CommentView>> getCommentChildren(@PathVariable Long id) {
+        List<CommentView> list = dashboardService.getCommentChildren(id);
         if (list == null)
             return ResponseEntity.notFound().build();
         return ResponseEntity.ok(list);
     }
 
+    // GET /api/comments/{id}/subtree -> the comment and all descendants, depth-first
+    @GetMapping("/comments/{id}/subtree")
+    public ResponseEntity<?> getCommentSubtree(@PathVariable Long id) {
+        try {
+            Map<String, Object> subtree = dashboardService.getCommentSubtree(id);
+            if (subtree == null)
+                return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(subtree);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET /api/comments/{id}/descendants/count
+    @GetMapping("/comments/{id}/descendants/count")
+    public ResponseEntity<?> countCommentDescendants(@PathVariable Long id) {
+        Long count = dashboardService.countCommentDescendants(id);
+        if (count == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(Map.of("commentId", id, "descendantCount", count));
+    }
+
     // POST /api/comments
+    // with app.writes.async.enabled -> 202 {id, status: "queued"}
     @PostMapping("/comments")
     public ResponseEntity<?> createComment(@RequestBody Map<String, Object> payload) {
         try {
-            Map<String, Object> comment = dashboardService.createComment(payload);
+            if (writeBehindPipeline.isEnabled()) {
+                long id = writeBehindPipeline.submitComment(payload);
+                return ResponseEntity.accepted().body(Map.of("id", id, "status", "queued"));
+            }
+            CommentView comment = dashboardService.createComment(payload);
             return ResponseEntity.ok(comment);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
         }
     }
 
     // GET /api/communities
+    // ETag / If-None-Match -> 304 while no community was created
     @GetMapping("/communities")
-    public ResponseEntity<List<Map<String, Object>>> getAllCommunities() {
+    public ResponseEntity<List<CommunityView>> getAllCommunities(ServletWebRequest request) {
+        if (notModified(request, Resource.COMMUNITIES))
+            return null;
         return ResponseEntity.ok(dashboardService.getAllCommunities());
     }
 
     // GET /api/communities/search?q=
     @GetMapping("/communities/search")
-    public ResponseEntity<List<Map<String, Object>>> searchCommunities(@RequestParam(defaultValue = "") String q) {
+    public ResponseEntity<List<CommunityView>> searchCommunities(@RequestParam(defaultValue = "") String q) {
         return ResponseEntity.ok(dashboardService.searchCommunities(q));
     }
 
+    // GET /api/communities/suggest?q=jav&limit=5 -> [{id, name, count}]
+    // names starting with q first, then containing it (3+ chars); by member count
+    @GetMapping("/communities/suggest")
+    public ResponseEntity<List<SuggestionView>> suggestCommunities(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(dashboardService.suggestCommunities(q, limit));
+    }
+
+    // GET /api/hashtags/suggest?q=@spr&limit=5 -> [{id, name, count}], by post count
+    @GetMapping("/hashtags/suggest")
+    public ResponseEntity<List<SuggestionView>> suggestHashtags(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(dashboardService.suggestHashtags(q, limit));
+    }
+
+    // GET /api/hashtags/{name}/posts?limit=20&cursor=... -> posts with the tag, newest first
+    // {content, nextCursor, hasNext}; 404 for an unknown tag
+    // ETag / If-None-Match -> 304 while no post or comment was written
+    @GetMapping("/hashtags/{name}/posts")
+    public ResponseEntity<?> getHashtagPosts(
+            @PathVariable String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            ServletWebRequest request) {
+        if (notModified(request, Resource.POSTS))
+            return null;
+        try {
+            FeedPage page = dashboardService.getHashtagPosts(name, cursor, limit);
+            if (page == null)
+                return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET /api/hashtags/trending?limit=10 -> [{id, name, uses}], most used in the trending window first
+    @GetMapping("/hashtags/trending")
+    public ResponseEntity<List<TrendingHashtagView>> getTrendingHashtags(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(dashboardService.getTrendingHashtags(limit));
+    }
+
     // GET /api/communities/paginated?page=0&size=15
     @GetMapping("/communities/paginated")
     public ResponseEntity<Map<String, Object>> getCommunitiesPaginated(
@@ -95,8 +257,11 @@ public class DashboardController {
     }
 
     // GET /api/flags
+    // ETag / If-None-Match -> 304 while no flag was created
     @GetMapping("/flags")
-    public ResponseEntity<List<Map<String, Object>>> getAllFlags() {
+    public ResponseEntity<List<FlagView>> getAllFlags(ServletWebRequest request) {
+        if (notModified(request, Resource.FLAGS))
+            return null;
         return ResponseEntity.ok(dashboardService.getAllFlags());
     }
 
@@ -118,9 +283,38 @@ public class DashboardController {
         }
     }
 
+    // GET /api/communities/membership?userId=7&ids=1,2,3 -> {"1": true, "2": false, "3": false}
+    @GetMapping("/communities/membership")
+    public ResponseEntity<?> getMemberships(
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "") List<Long> ids) {
+        try {
+            return ResponseEntity.ok(dashboardService.getMemberships(userId, new LinkedHashSet<>(ids)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET /api/users/{userId}/feed?limit=20&cursor=... -> posts from joined communities
+    // {content, nextCursor, hasNext}
+    @GetMapping("/users/{userId}/feed")
+    public ResponseEntity<?> getUserFeed(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            FeedPage feed = dashboardService.getUserFeed(userId, cursor, limit);
+            if (feed == null)
+                return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(feed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // GET /api/users/{userId}/joined-communities
     @GetMapping("/users/{userId}/joined-communities")
-    public ResponseEntity<List<Map<String, Object>>> getUserJoinedCommunities(@PathVariable Long userId) {
+    public ResponseEntity<List<CommunityView>> getUserJoinedCommunities(@PathVariable Long userId) {
         return ResponseEntity.ok(dashboardService.getUserJoinedCommunities(userId));
     }
 }
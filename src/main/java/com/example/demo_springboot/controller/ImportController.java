@@ -0,0 +1,29 @@
+package com.example.demo_springboot.controller;
+
+import com.example.demo_springboot.service.BulkImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin")
+public class ImportController {
+
+    private final BulkImportService bulkImportService;
+
+    public ImportController(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    // POST /api/admin/import  (body: NDJSON, one user, post, comment or membership per line)
+    // -> {users, posts, comments, memberships, skipped, seconds, rowsPerSecond}
+    @PostMapping("/import")
+    public ResponseEntity<BulkImportService.ImportResult> importNdjson(HttpServletRequest request) throws IOException {
+        try (BufferedReader reader = request.getReader()) {
+            return ResponseEntity.ok(bulkImportService.importNdjson(reader));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo_springboot.controller;
+
+import com.example.demo_springboot.service.LiveEventHub;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class StreamController {
+
+    private final LiveEventHub liveEventHub;
+
+    public StreamController(LiveEventHub liveEventHub) {
+        this.liveEventHub = liveEventHub;
+    }
+
+    // GET /api/stream?communityId=123  (text/event-stream)
+    // event: post    data: post as in GET /api/posts/{id}
+    // event: comment data: comment as in GET /api/posts/{id}/comments
+    // ": ping" comments every app.stream.heartbeat-ms; a client that falls
+    // app.stream.buffer-size events behind is disconnected and should refetch
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> stream(@RequestParam(required = false) Long communityId) {
+        try {
+            return ResponseEntity.ok()
+                    // stops nginx and similar proxies from buffering the stream
+                    .header("X-Accel-Buffering", "no")
+                    .body(liveEventHub.subscribe(communityId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).header("Retry-After", "5")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
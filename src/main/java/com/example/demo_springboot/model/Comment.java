@@ -1,5 +1,6 @@
 package com.example.demo_springboot.model;
 
+import com.example.demo_springboot.service.CommentPaths;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,14 +13,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = @Index(name = "idx_comments_path", columnList = "path"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Comment {
 
+    // Ids come from the shared id_sequences table (see IdSequences) so the
+    // write-behind pipeline can hand out ids before the row is inserted.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "comments_id")
+    @TableGenerator(name = "comments_id", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "comments", allocationSize = 50)
     private Long id;
 
     @Column(columnDefinition = "TEXT")
@@ -27,6 +32,20 @@ public class Comment {
 
     private Instant createdAt;
 
+    // Number of direct replies, maintained by DashboardService.createComment
+    @Column(columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int replyCount;
+
+    // Materialized path: one zero-padded id segment per ancestor, root first,
+    // e.g. "000000000012/000000000034/". A subtree is a contiguous index range
+    // and sorting by path gives depth-first render order. See CommentPaths.
+    @Column(length = CommentPaths.MAX_PATH_LENGTH)
+    private String path;
+
+    // 0 for top-level comments
+    @Column(columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int depth;
+
     // 🔹 Comment belongs to a Post (top-level)
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
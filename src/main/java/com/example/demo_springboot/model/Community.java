@@ -3,7 +3,9 @@ package com.example.demo_springboot.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "communities")
@@ -18,4 +20,16 @@ public class Community {
 
     @Column(unique = true, nullable = false)
     private String name;
+
+    // rows in user_communities for this community, maintained in SQL on join/leave;
+    // the default covers INSERTs that only name the community (data.sql, upserts)
+    @Column(name = "member_count", nullable = false)
+    @ColumnDefault("0")
+    @EqualsAndHashCode.Exclude
+    private int memberCount;
+
+    public Community(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.demo_springboot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A posts_hashtags row with the post's createdAt copied in, so the posts of
+ * a hashtag can be read newest first with one seek on the
+ * (hashtag_id, created_at, post_id) index, the way the community feed uses
+ * idx_posts_community_created_id. Written next to posts_hashtags by every
+ * path that creates posts; see HashtagPostRepository.
+ */
+@Entity
+@Table(name = "hashtag_posts", indexes = {
+        @Index(name = "idx_hashtag_posts_hashtag_created_post", columnList = "hashtag_id, created_at, post_id")
+})
+@IdClass(HashtagPost.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HashtagPost {
+
+    @Id
+    private Long hashtagId;
+
+    @Id
+    private Instant createdAt;
+
+    @Id
+    private Long postId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long hashtagId;
+        private Instant createdAt;
+        private Long postId;
+    }
+}
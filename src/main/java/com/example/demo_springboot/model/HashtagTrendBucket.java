@@ -0,0 +1,42 @@
+package com.example.demo_springboot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Snapshot of one time bucket of HashtagTrends: how often a hashtag was
+ * used on posts created in [bucketStart, bucketStart + bucket length).
+ * Rewritten periodically so the trending window survives restarts;
+ * {@code savedAt} tells the loader where to resume replaying posts.
+ */
+@Entity
+@Table(name = "hashtag_trend_buckets")
+@IdClass(HashtagTrendBucket.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HashtagTrendBucket {
+
+    @Id
+    private Long hashtagId;
+
+    @Id
+    private Instant bucketStart;
+
+    private long uses;
+
+    private Instant savedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long hashtagId;
+        private Instant bucketStart;
+    }
+}
@@ -17,14 +17,21 @@ import com.example.demo_springboot.model.Community;
 import com.example.demo_springboot.model.Flag;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_posts_community_created_id", columnList = "community_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Post {
 
+    // Ids come from the shared id_sequences table (see IdSequences) so the
+    // write-behind pipeline can hand out ids before the row is inserted.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "posts_id")
+    @TableGenerator(name = "posts_id", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "posts", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -34,6 +41,11 @@ public class Post {
 
     private Instant createdAt;
 
+    // Maintained by DashboardService.createComment so list views never load
+    // the comments collection just to count it.
+    @Column(columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int topLevelCommentCount;
+
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
@@ -41,6 +53,7 @@ public class Post {
     @JoinColumn(name = "author_id")
     private User author;
 
+    // hashtag pages read HashtagPost, which copies these rows with the post's createdAt
     @ManyToMany
     @JoinTable(name = "posts_hashtags", joinColumns = @JoinColumn(name = "post_id"), inverseJoinColumns = @JoinColumn(name = "hashtag_id"))
     private Set<Hashtag> hashtags = new HashSet<>();
@@ -0,0 +1,30 @@
+package com.example.demo_springboot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of a post's hot score, written periodically by HotFeed so the
+ * in-memory ranking survives restarts. {@code score} is the value as of
+ * {@code scoredAt}.
+ */
+@Entity
+@Table(name = "post_scores")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostScore {
+
+    @Id
+    private Long postId;
+
+    private Long communityId;
+
+    private double score;
+
+    private Instant scoredAt;
+}
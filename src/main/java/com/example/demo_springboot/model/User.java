@@ -11,8 +11,11 @@ import java.util.Set;
 @Data
 @NoArgsConstructor
 public class User {
+    // pooled ids from id_sequences (see IdSequences) so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "users", allocationSize = 50)
     private Long id;
 
     private String name;
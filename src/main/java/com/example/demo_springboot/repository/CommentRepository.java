@@ -1,25 +1,108 @@
 package com.example.demo_springboot.repository;
 
+import com.example.demo_springboot.DTO.CommentRow;
 import com.example.demo_springboot.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    // Read queries project straight into CommentRow with the author joined in.
+
+    String COMMENT_ROW = "SELECT new com.example.demo_springboot.DTO.CommentRow(c.id, c.post.id, par.id, c.body, "
+            + "c.createdAt, a.id, a.name, c.replyCount, c.path, c.depth) "
+            + "FROM Comment c LEFT JOIN c.parent par LEFT JOIN c.author a ";
+
     /**
      * All comments for a post (including nested replies).
      */
     List<Comment> findByPostId(Long postId);
 
+    /**
+     * Every comment of a post with its author, oldest first, for building the
+     * whole thread in memory from a single query. Ids are handed out in
+     * pooled blocks and are not in creation order, so they only break ties.
+     */
+    @Query(COMMENT_ROW + "WHERE c.post.id = :postId ORDER BY c.createdAt, c.id")
+    List<CommentRow> findByPostIdOrderByCreatedAtAsc(Long postId);
+
     /**
      * Top-level comments whose parent is NULL for the given post.
      */
-    List<Comment> findByPostIdAndParentIsNull(Long postId);
+    @Query(COMMENT_ROW + "WHERE c.post.id = :postId AND par.id IS NULL")
+    List<CommentRow> findByPostIdAndParentIsNull(Long postId);
 
     /**
      * Direct children of a given comment (one level deep only).
      */
-    List<Comment> findByParentId(Long parentId);
+    @Query(COMMENT_ROW + "WHERE par.id = :parentId")
+    List<CommentRow> findByParentId(Long parentId);
+
+    @Query(COMMENT_ROW + "WHERE c.id IN :ids ORDER BY c.id")
+    List<CommentRow> findRowsByIds(Collection<Long> ids);
+
+    /**
+     * A comment and all of its descendants in depth-first render order.
+     * Bounds come from CommentPaths, making this a range scan on the path index.
+     */
+    @Query(COMMENT_ROW + "WHERE c.path >= :fromPath AND c.path < :toPath ORDER BY c.path")
+    List<CommentRow> findSubtree(String fromPath, String toPath);
+
+    /**
+     * Number of comments in the path range (the subtree root included).
+     */
+    @Query("SELECT COUNT(c) FROM Comment c WHERE c.path >= :fromPath AND c.path < :toPath")
+    long countInPathRange(String fromPath, String toPath);
+
+    /**
+     * Comments still missing a materialized path, in id order. Ids are not in
+     * creation order (pooled id_sequences blocks), so a reply may come before
+     * its parent. Used by CommentPathBackfill.
+     */
+    List<Comment> findByPathIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * (id, path, depth) for a set of comments.
+     */
+    @Query("SELECT c.id, c.path, c.depth FROM Comment c WHERE c.id IN :ids")
+    List<Object[]> findPathsByIds(Collection<Long> ids);
+
+    /**
+     * Atomic SQL-side increment of a comment's reply counter.
+     */
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + 1 WHERE c.id = :commentId")
+    int incrementReplyCount(Long commentId);
+
+    /**
+     * Recompute replyCount from the comments table for rows that drifted.
+     * The grouped derived table is materialized, so MySQL allows it to read
+     * the table being updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE comments c LEFT JOIN (SELECT parent_comment_id, COUNT(*) AS cnt FROM comments "
+            + "WHERE parent_comment_id IS NOT NULL GROUP BY parent_comment_id) r ON r.parent_comment_id = c.id "
+            + "SET c.reply_count = COALESCE(r.cnt, 0) "
+            + "WHERE c.reply_count <> COALESCE(r.cnt, 0)", nativeQuery = true)
+    int reconcileReplyCounts();
+
+    /**
+     * Which of the given ids already exist.
+     */
+    @Query("SELECT c.id FROM Comment c WHERE c.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * (postId, communityId, createdAt) of every comment created after {@code since}.
+     */
+    @Query("SELECT p.id, com.id, c.createdAt FROM Comment c JOIN c.post p LEFT JOIN p.community com "
+            + "WHERE c.createdAt > :since")
+    List<Object[]> findActivitySince(Instant since);
 }
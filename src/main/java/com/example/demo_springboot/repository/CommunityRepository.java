@@ -1,14 +1,67 @@
 package com.example.demo_springboot.repository;
 
+import com.example.demo_springboot.config.CacheConfig;
 import com.example.demo_springboot.model.Community;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.domain.Pageable;
 
 import java.util.Optional;
 import java.util.List;
 
 public interface CommunityRepository extends JpaRepository<Community, Long> {
+    @Cacheable(value = CacheConfig.COMMUNITY_BY_NAME, key = "#p0.toLowerCase()", unless = "#result == null")
     Optional<Community> findByNameIgnoreCase(String name);
 
+    @Cacheable(value = CacheConfig.COMMUNITY_SEARCH, key = "#p0.toLowerCase() + ':' + #p1.pageSize")
     List<Community> findByNameContainingIgnoreCase(String query, Pageable pageable);
+
+    /**
+     * (id, name, member count) of every community, for the typeahead index.
+     */
+    @Query("SELECT c.id, c.name, c.memberCount FROM Community c")
+    List<Object[]> findNamesWithMemberCounts();
+
+    /**
+     * Atomic SQL-side change of a community's member counter. The cached
+     * lists carry the count, so they are dropped.
+     */
+    @Modifying
+    @Query("UPDATE Community c SET c.memberCount = c.memberCount + :delta WHERE c.id = :communityId")
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.COMMUNITIES, allEntries = true),
+            @CacheEvict(value = CacheConfig.COMMUNITY_SEARCH, allEntries = true) })
+    int adjustMemberCount(Long communityId, int delta);
+
+    /**
+     * Recompute memberCount from user_communities for rows that drifted.
+     */
+    @Modifying
+    @Query(value = "UPDATE communities c LEFT JOIN (SELECT community_id, COUNT(*) AS cnt FROM user_communities "
+            + "GROUP BY community_id) m ON m.community_id = c.id "
+            + "SET c.member_count = COALESCE(m.cnt, 0) "
+            + "WHERE c.member_count <> COALESCE(m.cnt, 0)", nativeQuery = true)
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.COMMUNITIES, allEntries = true),
+            @CacheEvict(value = CacheConfig.COMMUNITY_SEARCH, allEntries = true) })
+    int reconcileMemberCounts();
+
+    @Override
+    @Cacheable(CacheConfig.COMMUNITIES)
+    List<Community> findAll();
+
+    /**
+     * Saving a community refreshes its by-name entry and drops the list and
+     * search caches it could appear in.
+     */
+    @Override
+    @Caching(put = @CachePut(value = CacheConfig.COMMUNITY_BY_NAME, key = "#result.name.toLowerCase()"), evict = {
+            @CacheEvict(value = CacheConfig.COMMUNITIES, allEntries = true),
+            @CacheEvict(value = CacheConfig.COMMUNITY_SEARCH, allEntries = true) })
+    <S extends Community> S save(S entity);
 }
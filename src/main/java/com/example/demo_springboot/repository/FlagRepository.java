@@ -1,10 +1,26 @@
 package com.example.demo_springboot.repository;
 
+import com.example.demo_springboot.config.CacheConfig;
 import com.example.demo_springboot.model.Flag;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface FlagRepository extends JpaRepository<Flag, Long> {
+    @Cacheable(value = CacheConfig.FLAG_BY_NAME, key = "#p0.toLowerCase()", unless = "#result == null")
     Optional<Flag> findByNameIgnoreCase(String name);
+
+    @Override
+    @Cacheable(CacheConfig.FLAGS)
+    List<Flag> findAll();
+
+    @Override
+    @Caching(put = @CachePut(value = CacheConfig.FLAG_BY_NAME, key = "#result.name.toLowerCase()"),
+            evict = @CacheEvict(value = CacheConfig.FLAGS, allEntries = true))
+    <S extends Flag> S save(S entity);
 }
@@ -0,0 +1,59 @@
+package com.example.demo_springboot.repository;
+
+import com.example.demo_springboot.model.HashtagPost;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HashtagPostRepository extends JpaRepository<HashtagPost, HashtagPost.Key> {
+
+    // posts_hashtags rows not copied into hashtag_posts yet
+    String INSERT_MISSING = "INSERT INTO hashtag_posts (hashtag_id, created_at, post_id) "
+            + "SELECT ph.hashtag_id, p.created_at, ph.post_id "
+            + "FROM posts_hashtags ph JOIN posts p ON p.id = ph.post_id "
+            + "WHERE p.created_at IS NOT NULL AND NOT EXISTS (SELECT 1 FROM hashtag_posts hp "
+            + "WHERE hp.hashtag_id = ph.hashtag_id AND hp.created_at = p.created_at AND hp.post_id = ph.post_id) ";
+
+    /**
+     * (postId, createdAt) of the newest posts tagged {@code hashtagId}, id
+     * breaking ties like in the feed.
+     */
+    @Query("SELECT h.postId, h.createdAt FROM HashtagPost h WHERE h.hashtagId = :hashtagId "
+            + "ORDER BY h.createdAt DESC, h.postId DESC")
+    List<Object[]> findNewest(Long hashtagId, Pageable pageable);
+
+    /**
+     * Seek to the page after the given (createdAt, postId) key, served by the
+     * (hashtag_id, created_at, post_id) index.
+     */
+    @Query("SELECT h.postId, h.createdAt FROM HashtagPost h WHERE h.hashtagId = :hashtagId "
+            + "AND (h.createdAt < :createdAt OR (h.createdAt = :createdAt AND h.postId < :postId)) "
+            + "ORDER BY h.createdAt DESC, h.postId DESC")
+    List<Object[]> findNewestAfter(Long hashtagId, Instant createdAt, Long postId, Pageable pageable);
+
+    /**
+     * Copy the hashtags of freshly inserted posts. Joins the caller's
+     * transaction, or runs in its own after a plain repository save.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = INSERT_MISSING + "AND ph.post_id IN (:postIds)", nativeQuery = true)
+    int insertForPosts(Collection<Long> postIds);
+
+    /**
+     * Copy every posts_hashtags row that is missing, e.g. after a bulk import
+     * or for posts created before this table existed.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = INSERT_MISSING, nativeQuery = true)
+    int insertMissing();
+}
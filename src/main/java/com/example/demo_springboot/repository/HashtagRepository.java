@@ -1,14 +1,40 @@
 package com.example.demo_springboot.repository;
 
+import com.example.demo_springboot.config.CacheConfig;
 import com.example.demo_springboot.model.Hashtag;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface HashtagRepository extends JpaRepository<Hashtag, Long> {
     Optional<Hashtag> findByName(String name);
 
+    @Cacheable(value = CacheConfig.HASHTAG_BY_NAME, key = "#p0.toLowerCase()", unless = "#result == null")
     Optional<Hashtag> findByNameIgnoreCase(String name);
+
+    /**
+     * All hashtags named any of {@code names}, in one query. Case is ignored
+     * by the column's collation (MySQL's default is case-insensitive), so the
+     * lookup is a range probe on the unique index on name; wrapping the
+     * column in LOWER() would scan the table instead.
+     */
+    List<Hashtag> findByNameIn(Collection<String> names);
+
+    /**
+     * (id, name, post count) of every hashtag, for the typeahead index.
+     */
+    @Query(value = "SELECT h.id, h.name, COUNT(ph.post_id) FROM hashtags h "
+            + "LEFT JOIN posts_hashtags ph ON ph.hashtag_id = h.id GROUP BY h.id, h.name", nativeQuery = true)
+    List<Object[]> findNamesWithPostCounts();
+
+    @Override
+    @CachePut(value = CacheConfig.HASHTAG_BY_NAME, key = "#result.name.toLowerCase()")
+    <S extends Hashtag> S save(S entity);
 }
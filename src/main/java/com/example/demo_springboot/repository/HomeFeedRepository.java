@@ -0,0 +1,95 @@
+package com.example.demo_springboot.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keyset reads over several communities at once for the home feed. Only
+ * (id, communityId, createdAt) keys are returned; the page itself is loaded
+ * by id afterwards.
+ */
+@Repository
+public class HomeFeedRepository {
+
+    public record FeedKey(long id, long communityId, Instant createdAt) {
+        /**
+         * Feed order: createdAt descending, id breaking ties.
+         */
+        public static final Comparator<FeedKey> NEWEST_FIRST = Comparator.comparing(FeedKey::createdAt)
+                .thenComparingLong(FeedKey::id).reversed();
+    }
+
+    private static final RowMapper<FeedKey> FEED_KEY = (rs, i) -> new FeedKey(rs.getLong(1), rs.getLong(2),
+            rs.getTimestamp(3).toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HomeFeedRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The newest {@code perCommunity} keys of each community, older than the
+     * cursor when one is given, grouped by community and newest first. One
+     * statement: a UNION ALL of per-community branches, each a bounded seek
+     * on the (community_id, created_at, id) index.
+     */
+    public Map<Long, List<FeedKey>> latestPerCommunity(Collection<Long> communityIds, Instant beforeCreatedAt,
+            Long beforeId, int perCommunity) {
+        if (communityIds.isEmpty())
+            return Map.of();
+        String branch = "(SELECT id, community_id, created_at FROM posts WHERE community_id = ?"
+                + (beforeCreatedAt == null ? "" : " AND (created_at < ? OR (created_at = ? AND id < ?))")
+                + " ORDER BY created_at DESC, id DESC LIMIT ?)";
+        String sql = String.join(" UNION ALL ", Collections.nCopies(communityIds.size(), branch));
+
+        List<Object> args = new ArrayList<>();
+        for (Long communityId : communityIds) {
+            args.add(communityId);
+            if (beforeCreatedAt != null) {
+                Timestamp ts = Timestamp.from(beforeCreatedAt);
+                args.add(ts);
+                args.add(ts);
+                args.add(beforeId);
+            }
+            args.add(perCommunity);
+        }
+
+        Map<Long, List<FeedKey>> byCommunity = new HashMap<>();
+        for (FeedKey key : jdbcTemplate.query(sql, FEED_KEY, args.toArray()))
+            byCommunity.computeIfAbsent(key.communityId(), k -> new ArrayList<>()).add(key);
+        // UNION ALL does not promise to keep each branch's order
+        for (List<FeedKey> keys : byCommunity.values())
+            keys.sort(FeedKey.NEWEST_FIRST);
+        return byCommunity;
+    }
+
+    /**
+     * The newest {@code limit} keys across all given communities with a single
+     * IN filter. Cheaper than latestPerCommunity when a user has joined so many
+     * communities that one branch per community no longer pays off.
+     */
+    public List<FeedKey> latestInCommunities(Collection<Long> communityIds, Instant beforeCreatedAt, Long beforeId,
+            int limit) {
+        if (communityIds.isEmpty())
+            return List.of();
+        String in = String.join(",", Collections.nCopies(communityIds.size(), "?"));
+        List<Object> args = new ArrayList<>(communityIds);
+        String sql = "SELECT id, community_id, created_at FROM posts WHERE community_id IN (" + in + ")";
+        if (beforeCreatedAt != null) {
+            sql += " AND (created_at < ? OR (created_at = ? AND id < ?))";
+            Timestamp ts = Timestamp.from(beforeCreatedAt);
+            args.add(ts);
+            args.add(ts);
+            args.add(beforeId);
+        }
+        sql += " ORDER BY created_at DESC, id DESC LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, FEED_KEY, args.toArray());
+    }
+}
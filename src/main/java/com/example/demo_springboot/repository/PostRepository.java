@@ -1,20 +1,122 @@
 package com.example.demo_springboot.repository;
 
+import com.example.demo_springboot.DTO.PostHashtagRow;
+import com.example.demo_springboot.DTO.PostRow;
 import com.example.demo_springboot.model.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    @Query("SELECT p FROM Post p ORDER BY p.createdAt DESC")
-    List<Post> findAllOrderByCreatedAtDesc();
+    // Read queries project straight into PostRow: author, community and flag
+    // are left-joined in the same statement and no entities are hydrated.
+    // Hashtags are loaded separately in one batch via findHashtagsByPostIds,
+    // since joining a collection would multiply rows and break paging.
 
-    @Query("SELECT p FROM Post p WHERE p.title ILIKE %:q% OR p.body ILIKE %:q% ORDER BY p.createdAt DESC")
-    List<Post> findByTitleContainingIgnoreCaseOrBodyContainingIgnoreCaseOrderByCreatedAtDesc(String q);
+    String POST_ROW = "SELECT new com.example.demo_springboot.DTO.PostRow(p.id, p.title, p.body, p.createdAt, "
+            + "a.id, a.name, c.id, c.name, f.id, f.name, p.topLevelCommentCount) "
+            + "FROM Post p LEFT JOIN p.author a LEFT JOIN p.community c LEFT JOIN p.flag f ";
 
-    @Query("SELECT p FROM Post p WHERE p.community.id = :communityId ORDER BY p.createdAt DESC")
-    List<Post> findByCommunityIdOrderByCreatedAtDesc(Long communityId);
+    @Query(POST_ROW + "ORDER BY p.createdAt DESC")
+    List<PostRow> findAllOrderByCreatedAtDesc();
+
+    @Query(POST_ROW + "WHERE c.id = :communityId ORDER BY p.createdAt DESC")
+    List<PostRow> findByCommunityIdOrderByCreatedAtDesc(Long communityId);
+
+    /**
+     * First page of the feed, newest first. (createdAt, id) is the keyset; id
+     * breaks ties between posts created in the same instant.
+     */
+    @Query(POST_ROW + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRow> findFeedFirstPage(Pageable pageable);
+
+    /**
+     * Seek to the page after the given (createdAt, id) key. Served by the
+     * (created_at, id) index so the cost does not grow with the page number.
+     */
+    @Query(POST_ROW + "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRow> findFeedAfter(Instant createdAt, Long id, Pageable pageable);
+
+    @Query(POST_ROW + "WHERE c.id = :communityId ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRow> findCommunityFeedFirstPage(Long communityId, Pageable pageable);
+
+    /**
+     * Community variant of {@link #findFeedAfter}, served by the
+     * (community_id, created_at, id) index.
+     */
+    @Query(POST_ROW + "WHERE c.id = :communityId "
+            + "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRow> findCommunityFeedAfter(Long communityId, Instant createdAt, Long id, Pageable pageable);
+
+    @Query(POST_ROW + "WHERE p.id = :id")
+    Optional<PostRow> findRowById(Long id);
+
+    /**
+     * Posts for a set of ids (e.g. search hits), in no particular order.
+     */
+    @Query(POST_ROW + "WHERE p.id IN :ids")
+    List<PostRow> findRowsByIdIn(Collection<Long> ids);
+
+    /**
+     * (postId, hashtag) pairs for a whole page of posts in one query.
+     */
+    @Query("SELECT new com.example.demo_springboot.DTO.PostHashtagRow(p.id, h.id, h.name) "
+            + "FROM Post p JOIN p.hashtags h WHERE p.id IN :postIds")
+    List<PostHashtagRow> findHashtagsByPostIds(Collection<Long> postIds);
+
+    /**
+     * Atomic SQL-side increment, so concurrent comments never lose an update.
+     */
+    @Modifying
+    @Query("UPDATE Post p SET p.topLevelCommentCount = p.topLevelCommentCount + 1 WHERE p.id = :postId")
+    int incrementTopLevelCommentCount(Long postId);
+
+    /**
+     * Recompute topLevelCommentCount from the comments table for rows that
+     * drifted. Returns the number of repaired posts.
+     */
+    @Modifying
+    @Query(value = "UPDATE posts p LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM comments "
+            + "WHERE parent_comment_id IS NULL GROUP BY post_id) c ON c.post_id = p.id "
+            + "SET p.top_level_comment_count = COALESCE(c.cnt, 0) "
+            + "WHERE p.top_level_comment_count <> COALESCE(c.cnt, 0)", nativeQuery = true)
+    int reconcileTopLevelCommentCounts();
+
+    /**
+     * Which of the given ids already exist.
+     */
+    @Query("SELECT p.id FROM Post p WHERE p.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * (id, communityId, createdAt) of posts created after {@code since}.
+     */
+    @Query("SELECT p.id, c.id, p.createdAt FROM Post p LEFT JOIN p.community c WHERE p.createdAt > :since")
+    List<Object[]> findCreatedSince(Instant since);
+
+    /**
+     * (hashtagId, createdAt) for every hashtag use on posts created after
+     * {@code since}.
+     */
+    @Query("SELECT h.id, p.createdAt FROM Post p JOIN p.hashtags h WHERE p.createdAt > :since")
+    List<Object[]> findHashtagUsesSince(Instant since);
+
+    @Query("SELECT c.id FROM Post p JOIN p.community c WHERE p.id = :postId")
+    Optional<Long> findCommunityIdById(Long postId);
+
+    /**
+     * (postId, communityId) for a set of posts; communityId may be null.
+     */
+    @Query("SELECT p.id, c.id FROM Post p LEFT JOIN p.community c WHERE p.id IN :ids")
+    List<Object[]> findCommunityIdsByIds(Collection<Long> ids);
 }
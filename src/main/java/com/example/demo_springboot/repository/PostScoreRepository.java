@@ -0,0 +1,9 @@
+package com.example.demo_springboot.repository;
+
+import com.example.demo_springboot.model.PostScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PostScoreRepository extends JpaRepository<PostScore, Long> {
+}
@@ -0,0 +1,98 @@
+package com.example.demo_springboot.repository;
+
+import com.example.demo_springboot.config.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Idempotent inserts for the name-keyed reference tables (hashtags,
+ * communities, flags). Each call is a single multi-row
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE name = name}: names that already
+ * exist, including ones inserted concurrently by another request, are left
+ * alone by the unique index instead of failing the transaction. Any other
+ * error (too long, NULL) still fails, unlike {@code INSERT IGNORE}, which
+ * would truncate or drop the row with only a warning. Callers re-read the
+ * rows afterwards to get their ids.
+ */
+@Repository
+public class ReferenceNameUpserter {
+
+    // length of the name column of Hashtag, Community and Flag (the JPA default)
+    public static final int MAX_NAME_LENGTH = 255;
+
+    /**
+     * The tables this class writes to; the SQL is built from these names
+     * only, never from input.
+     */
+    private enum NameTable {
+        HASHTAGS("hashtags", "hashtag"),
+        COMMUNITIES("communities", "community"),
+        FLAGS("flags", "flag");
+
+        private final String table;
+        private final String label;
+
+        NameTable(String table, String label) {
+            this.table = table;
+            this.label = label;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReferenceNameUpserter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Rejects a name that would not fit the name column.
+     */
+    public static void checkHashtagName(String name) {
+        checkName(NameTable.HASHTAGS, name);
+    }
+
+    public static void checkCommunityName(String name) {
+        checkName(NameTable.COMMUNITIES, name);
+    }
+
+    public static void checkFlagName(String name) {
+        checkName(NameTable.FLAGS, name);
+    }
+
+    private static void checkName(NameTable table, String name) {
+        if (name.length() > MAX_NAME_LENGTH)
+            throw new IllegalArgumentException(
+                    table.label + " names can be at most " + MAX_NAME_LENGTH + " characters long");
+    }
+
+    public int insertHashtags(Collection<String> names) {
+        return insertMissing(NameTable.HASHTAGS, names);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.COMMUNITIES, allEntries = true),
+            @CacheEvict(value = CacheConfig.COMMUNITY_SEARCH, allEntries = true) })
+    public int insertCommunity(String name) {
+        return insertMissing(NameTable.COMMUNITIES, Collections.singletonList(name));
+    }
+
+    @CacheEvict(value = CacheConfig.FLAGS, allEntries = true)
+    public int insertFlag(String name) {
+        return insertMissing(NameTable.FLAGS, Collections.singletonList(name));
+    }
+
+    private int insertMissing(NameTable table, Collection<String> names) {
+        if (names.isEmpty())
+            return 0;
+        for (String name : names)
+            checkName(table, name);
+        String values = String.join(",", Collections.nCopies(names.size(), "(?)"));
+        return jdbcTemplate.update("INSERT INTO " + table.table + " (name) VALUES " + values
+                + " ON DUPLICATE KEY UPDATE name = name", names.toArray());
+    }
+}
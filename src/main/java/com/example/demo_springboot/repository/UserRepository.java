@@ -2,7 +2,11 @@ package com.example.demo_springboot.repository;
 
 import com.example.demo_springboot.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,4 +17,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     boolean existsById(Long id);
+
+    @Query("SELECT c.id FROM User u JOIN u.joinedCommunities c WHERE u.id = :userId")
+    List<Long> findJoinedCommunityIds(Long userId);
+
+    // Membership rows are written directly so joining or leaving never loads
+    // joinedCommunities. The return value is the number of rows changed.
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_communities (user_id, community_id) VALUES (:userId, :communityId)",
+            nativeQuery = true)
+    int insertMembership(Long userId, Long communityId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_communities WHERE user_id = :userId AND community_id = :communityId",
+            nativeQuery = true)
+    int deleteMembership(Long userId, Long communityId);
+
+    /**
+     * Which of {@code communityIds} the user has joined, from the join
+     * table's primary key alone.
+     */
+    @Query(value = "SELECT community_id FROM user_communities WHERE user_id = :userId AND community_id IN :communityIds",
+            nativeQuery = true)
+    List<Long> findJoinedAmong(Long userId, Collection<Long> communityIds);
 }
@@ -7,31 +7,26 @@ import com.example.demo_springboot.model.User;
 import com.example.demo_springboot.repository.UserRepository;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import java.util.Date;
 import java.util.Map;
-import javax.crypto.SecretKey;
 
 @Service
 public class AuthService {
     private final UserRepository userRepository;
+    private final TokenService tokenService;
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
     @Value("${admin.role}")
     private String admin_role;
     @Value("${admin.pass}")
     private String admin_pass;
     private String role = "user";
 
-    public AuthService(UserRepository userRepository) {
+    public AuthService(UserRepository userRepository, TokenService tokenService) {
         this.userRepository = userRepository;
+        this.tokenService = tokenService;
     }
 
     public AuthResponse register(RegisterRequest request) {
@@ -45,7 +40,7 @@ public class AuthService {
 
         User user = new User(null, request.getName(), request.getEmail(), request.getPassword(), role);
         User savedUser = userRepository.save(user);
-        String token = generateToken(String.valueOf(savedUser.getId()), savedUser.getRole());
+        String token = tokenService.issue(String.valueOf(savedUser.getId()), savedUser.getRole());
 
         return new AuthResponse(
                 token,
@@ -64,7 +59,7 @@ public class AuthService {
         if (!user.getPassword().equals(request.getPassword())) {
             return new AuthResponse("Invalid credentials");
         }
-        String token = generateToken(String.valueOf(user.getId()), user.getRole());
+        String token = tokenService.issue(String.valueOf(user.getId()), user.getRole());
         return new AuthResponse(
                 token,
                 user.getName(),
@@ -75,11 +70,7 @@ public class AuthService {
 
     public ResponseEntity<Map<String, String>> validateAdminToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = tokenService.parse(token);
 
             String role = claims.get("role", String.class);
 
@@ -99,24 +90,6 @@ public class AuthService {
         }
     }
 
-    private String generateToken(String subject, String role) {
-        Date now = new Date();
-        // 1 hour expiry (milliseconds)
-        Date expiryDate = new Date(now.getTime() + 60L * 60L * 10000L);
-        return Jwts.builder()
-                .subject(subject)
-                .claim("role", role)
-                .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSignInKey())
-                .compact();
-    }
-
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     // public ResponseEntity<Map<String, Object>> decodeToken(String token) {
     // try {
     // Claims claims = Jwts.parser()
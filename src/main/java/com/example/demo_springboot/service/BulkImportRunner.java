@@ -0,0 +1,35 @@
+package com.example.demo_springboot.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line import: start the app with {@code --import=path/to/file.ndjson}
+ * to load the file through BulkImportService before serving requests.
+ */
+@Component
+public class BulkImportRunner implements ApplicationRunner {
+
+    private final BulkImportService bulkImportService;
+
+    public BulkImportRunner(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption("import"))
+            return;
+        for (String file : args.getOptionValues("import")) {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                bulkImportService.importNdjson(reader);
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.model.Comment;
+import com.example.demo_springboot.model.Community;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.model.User;
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.CommunityRepository;
+import com.example.demo_springboot.repository.HashtagPostRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Loads users, posts, comments and memberships from NDJSON, one object per line:
+ *
+ * <pre>
+ * {"type":"user","ref":"u1","name":"ann","email":"ann@example.com","password":"..."}
+ * {"type":"post","ref":"p1","title":"...","body":"...","author":"u1","hashtags":"@java @jpa","community":"Java","flag":"question"}
+ * {"type":"comment","ref":"c1","post":"p1","authorId":2,"body":"..."}
+ * {"type":"comment","post":"p1","parent":"c1","body":"..."}
+ * {"type":"membership","user":"u1","community":"Java"}
+ * </pre>
+ *
+ * {@code author}, {@code user}, {@code post} and {@code parent} refer to the
+ * {@code ref} of an earlier line; {@code authorId}, {@code userId},
+ * {@code postId} / {@code parentId} refer to rows already in the database.
+ * Post lines accept the same fields as POST /api/posts, plus an optional
+ * ISO {@code createdAt}. Users whose e-mail is taken are skipped, and
+ * memberships name a community that exists by then (e.g. created by a post).
+ * Comments whose post or parent cannot be found, and replies nested deeper
+ * than CommentPaths.MAX_DEPTH, are skipped. So are posts and comments whose
+ * author or authorId cannot be found: they are not imported as anonymous.
+ * The synthetic data set from the load-test DataGenerator has this shape.
+ *
+ * Lines are persisted in chunks of CHUNK_SIZE per transaction so Hibernate
+ * sends them as JDBC batches (see HibernateConfig); the persistence context
+ * is cleared after each chunk. Comment counters are reconciled once at the
+ * end instead of being incremented per row, and hashtag_posts is filled in
+ * from posts_hashtags in one statement.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    public record ImportResult(long users, long posts, long comments, long memberships, long skipped, double seconds,
+            double rowsPerSecond) {
+    }
+
+    private final DashboardService dashboardService;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final UserRepository userRepository;
+    private final CommunityRepository communityRepository;
+    private final HashtagPostRepository hashtagPostRepository;
+    private final PostSearchIndex postSearchIndex;
+    private final HotFeed hotFeed;
+    private final ResourceVersions resourceVersions;
+    private final NameSuggestions nameSuggestions;
+    private final HashtagTrends hashtagTrends;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public BulkImportService(DashboardService dashboardService, PostRepository postRepository,
+            CommentRepository commentRepository, UserRepository userRepository,
+            CommunityRepository communityRepository, HashtagPostRepository hashtagPostRepository,
+            PostSearchIndex postSearchIndex,
+            HotFeed hotFeed, ResourceVersions resourceVersions, NameSuggestions nameSuggestions,
+            HashtagTrends hashtagTrends, EntityManager entityManager, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.dashboardService = dashboardService;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.userRepository = userRepository;
+        this.communityRepository = communityRepository;
+        this.hashtagPostRepository = hashtagPostRepository;
+        this.postSearchIndex = postSearchIndex;
+        this.hotFeed = hotFeed;
+        this.resourceVersions = resourceVersions;
+        this.nameSuggestions = nameSuggestions;
+        this.hashtagTrends = hashtagTrends;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    public ImportResult importNdjson(BufferedReader reader) throws IOException {
+        long start = System.nanoTime();
+        ImportState state = new ImportState();
+        List<Map<String, Object>> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank())
+                continue;
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> row = objectMapper.readValue(line, Map.class);
+                chunk.add(row);
+            } catch (RuntimeException e) {
+                state.skipped++;
+                continue;
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, state);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            importChunk(chunk, state);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            postRepository.reconcileTopLevelCommentCounts();
+            commentRepository.reconcileReplyCounts();
+            communityRepository.reconcileMemberCounts();
+            hashtagPostRepository.insertMissing();
+        });
+        // imported posts were not indexed or ranked one by one
+        postSearchIndex.rebuild();
+        hotFeed.rebuildFromDatabase();
+        nameSuggestions.reload();
+        hashtagTrends.rebuildFromDatabase();
+        // new communities and flags may have come in with the posts
+        for (ResourceVersions.Resource resource : ResourceVersions.Resource.values())
+            resourceVersions.bump(resource);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long rows = state.users + state.posts + state.comments + state.memberships;
+        ImportResult result = new ImportResult(state.users, state.posts, state.comments, state.memberships,
+                state.skipped, seconds, seconds > 0 ? rows / seconds : rows);
+        log.info("Imported {} users, {} posts, {} comments and {} memberships ({} lines skipped) in {} s, {} rows/s",
+                result.users(), result.posts(), result.comments(), result.memberships(), result.skipped(),
+                String.format("%.1f", seconds), String.format("%.0f", result.rowsPerSecond()));
+        return result;
+    }
+
+    private void importChunk(List<Map<String, Object>> chunk, ImportState state) {
+        transactionTemplate.executeWithoutResult(status -> {
+            loadCommentReferences(chunk, state);
+            for (Map<String, Object> row : chunk) {
+                Object type = row.get("type");
+                if ("post".equals(type))
+                    importPost(row, state);
+                else if ("comment".equals(type))
+                    importComment(row, state);
+                else if ("user".equals(type))
+                    importUser(row, state);
+                else if ("membership".equals(type))
+                    importMembership(row, state);
+                else
+                    state.skipped++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+            // after the flush, so users persisted in this chunk exist
+            jdbcTemplate.batchUpdate("INSERT IGNORE INTO user_communities (user_id, community_id) VALUES (?, ?)",
+                    state.pendingMemberships);
+            state.pendingMemberships.clear();
+        });
+    }
+
+    /**
+     * Check the postId and parentId of the chunk's comments against the
+     * database in two queries, and load the paths of the parents.
+     */
+    private void loadCommentReferences(List<Map<String, Object>> chunk, ImportState state) {
+        Set<Long> postIds = new HashSet<>();
+        Set<Long> parentIds = new HashSet<>();
+        for (Map<String, Object> row : chunk) {
+            if (!"comment".equals(row.get("type")))
+                continue;
+            Long postId = row.get("post") == null ? parseId(row.get("postId")) : null;
+            if (postId != null && !state.knownPosts.contains(postId))
+                postIds.add(postId);
+            Long parentId = row.get("parent") == null ? parseId(row.get("parentId")) : null;
+            if (parentId != null && !state.knownComments.contains(parentId))
+                parentIds.add(parentId);
+        }
+        if (!postIds.isEmpty())
+            state.knownPosts.addAll(postRepository.findExistingIds(postIds));
+        if (parentIds.isEmpty())
+            return;
+        for (Object[] parent : commentRepository.findPathsByIds(parentIds)) {
+            Long id = (Long) parent[0];
+            state.knownComments.add(id);
+            // a parent still waiting for CommentPathBackfill leaves its replies to it too
+            if (parent[1] != null) {
+                state.paths.put(id, (String) parent[1]);
+                state.depths.put(id, (Integer) parent[2]);
+            }
+        }
+    }
+
+    private void importUser(Map<String, Object> row, ImportState state) {
+        Object email = row.get("email");
+        if (email == null || userRepository.existsByEmail(String.valueOf(email))) {
+            state.skipped++;
+            return;
+        }
+        // never admin: roles are not taken from import files
+        User user = new User(null, String.valueOf(row.getOrDefault("name", email)), String.valueOf(email),
+                String.valueOf(row.getOrDefault("password", "")), "user");
+        entityManager.persist(user);
+        Object ref = row.get("ref");
+        if (ref != null)
+            state.userRefs.put(String.valueOf(ref), user.getId());
+        state.authorExists.put(user.getId(), true);
+        state.users++;
+    }
+
+    private void importMembership(Map<String, Object> row, ImportState state) {
+        Long userId = resolve(row, "user", "userId", state.userRefs);
+        Long communityId = parseId(row.get("communityId"));
+        Object communityName = row.get("community");
+        if (communityId == null && communityName != null)
+            communityId = communityRepository.findByNameIgnoreCase(String.valueOf(communityName))
+                    .map(Community::getId).orElse(null);
+        if (userId == null || communityId == null) {
+            state.skipped++;
+            return;
+        }
+        state.pendingMemberships.add(new Object[] { userId, communityId });
+        state.memberships++;
+    }
+
+    private void importPost(Map<String, Object> row, ImportState state) {
+        Long authorId = resolve(row, "author", "authorId", state.userRefs);
+        if (hasAuthor(row) && !authorExists(authorId, state)) {
+            state.skipped++;
+            return;
+        }
+        // the author is already checked; buildPost would look it up again
+        Map<String, Object> payload = new HashMap<>(row);
+        payload.remove("authorId");
+        Post post = dashboardService.buildPost(payload);
+        if (authorId != null)
+            post.setAuthor(userRepository.getReferenceById(authorId));
+        Instant createdAt = parseInstant(row.get("createdAt"));
+        if (createdAt != null)
+            post.setCreatedAt(createdAt);
+        entityManager.persist(post);
+        state.knownPosts.add(post.getId());
+        Object ref = row.get("ref");
+        if (ref != null)
+            state.postRefs.put(String.valueOf(ref), post.getId());
+        state.posts++;
+    }
+
+    private void importComment(Map<String, Object> row, ImportState state) {
+        Long postId = resolve(row, "post", "postId", state.postRefs);
+        if (postId == null || !state.knownPosts.contains(postId)) {
+            state.skipped++;
+            return;
+        }
+        // a reply whose parent cannot be found is skipped, not made top-level
+        boolean isReply = row.get("parent") != null || row.get("parentId") != null;
+        Long parentId = resolve(row, "parent", "parentId", state.commentRefs);
+        if (isReply && (parentId == null || !state.knownComments.contains(parentId))) {
+            state.skipped++;
+            return;
+        }
+        Integer parentDepth = parentId == null ? null : state.depths.get(parentId);
+        if (parentDepth != null && parentDepth >= CommentPaths.MAX_DEPTH) {
+            state.skipped++;
+            return;
+        }
+        Long authorId = resolve(row, "author", "authorId", state.userRefs);
+        if (hasAuthor(row) && !authorExists(authorId, state)) {
+            state.skipped++;
+            return;
+        }
+
+        Comment comment = new Comment();
+        comment.setBody(String.valueOf(row.getOrDefault("body", "")));
+        comment.setPost(postRepository.getReferenceById(postId));
+        comment.setCreatedAt(parseInstant(row.get("createdAt")));
+
+        if (authorId != null)
+            comment.setAuthor(userRepository.getReferenceById(authorId));
+
+        if (parentId != null)
+            comment.setParent(commentRepository.getReferenceById(parentId));
+
+        entityManager.persist(comment);
+
+        // the path needs the id, which the pooled generator assigned on persist
+        // without a round trip; the resulting UPDATEs are batched at flush.
+        // Replies under a parent without a path are left to CommentPathBackfill
+        String parentPath = parentId == null ? null : state.paths.get(parentId);
+        if (parentId == null || parentPath != null) {
+            String path = CommentPaths.childPath(parentPath, comment.getId());
+            comment.setPath(path);
+            comment.setDepth(parentId == null ? 0 : parentDepth + 1);
+            state.paths.put(comment.getId(), path);
+            state.depths.put(comment.getId(), comment.getDepth());
+        }
+
+        state.knownComments.add(comment.getId());
+        Object ref = row.get("ref");
+        if (ref != null)
+            state.commentRefs.put(String.valueOf(ref), comment.getId());
+        state.comments++;
+    }
+
+    private static boolean hasAuthor(Map<String, Object> row) {
+        return row.get("author") != null || row.get("authorId") != null;
+    }
+
+    // users imported earlier in the file are known; others are checked once
+    private boolean authorExists(Long authorId, ImportState state) {
+        return authorId != null && state.authorExists.computeIfAbsent(authorId, userRepository::existsById);
+    }
+
+    private static Long resolve(Map<String, Object> row, String refField, String idField, Map<String, Long> refs) {
+        Object ref = row.get(refField);
+        if (ref != null)
+            return refs.get(String.valueOf(ref));
+        return parseId(row.get(idField));
+    }
+
+    private static Long parseId(Object value) {
+        if (value == null)
+            return null;
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Instant parseInstant(Object value) {
+        if (value == null)
+            return null;
+        try {
+            return Instant.parse(String.valueOf(value));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static final class ImportState {
+        long users;
+        long posts;
+        long comments;
+        long memberships;
+        long skipped;
+        final Map<String, Long> userRefs = new HashMap<>();
+        // (userId, communityId) rows for the current chunk
+        final List<Object[]> pendingMemberships = new ArrayList<>();
+        final Map<String, Long> postRefs = new HashMap<>();
+        final Map<String, Long> commentRefs = new HashMap<>();
+        final Map<Long, Boolean> authorExists = new HashMap<>();
+        // posts and comments imported so far or found in the database
+        final Set<Long> knownPosts = new HashSet<>();
+        final Set<Long> knownComments = new HashSet<>();
+        // materialized paths of comments imported so far and of their parents
+        final Map<Long, String> paths = new HashMap<>();
+        final Map<Long, Integer> depths = new HashMap<>();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.CommunityRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Periodically repairs drift between the denormalized comment counters
+ * (Post.topLevelCommentCount, Comment.replyCount) and the comments table,
+ * e.g. after manual deletes or rows written before the counters existed.
+ * Community.memberCount is checked against user_communities the same way.
+ */
+@Component
+public class CommentCounterReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentCounterReconciler.class);
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final CommunityRepository communityRepository;
+    private final ResourceVersions resourceVersions;
+
+    public CommentCounterReconciler(PostRepository postRepository, CommentRepository commentRepository,
+            CommunityRepository communityRepository, ResourceVersions resourceVersions) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.communityRepository = communityRepository;
+        this.resourceVersions = resourceVersions;
+    }
+
+    @Scheduled(initialDelayString = "${counters.reconcile.initial-delay-ms:60000}",
+            fixedDelayString = "${counters.reconcile.interval-ms:3600000}")
+    @Transactional
+    public void reconcile() {
+        int posts = postRepository.reconcileTopLevelCommentCounts();
+        int comments = commentRepository.reconcileReplyCounts();
+        if (posts > 0 || comments > 0) {
+            log.info("Repaired comment counters: {} posts, {} comments", posts, comments);
+            resourceVersions.bump(ResourceVersions.Resource.POSTS);
+        }
+        int communities = communityRepository.reconcileMemberCounts();
+        if (communities > 0) {
+            log.info("Repaired member counts of {} communities", communities);
+            resourceVersions.bump(ResourceVersions.Resource.COMMUNITIES);
+        }
+    }
+}
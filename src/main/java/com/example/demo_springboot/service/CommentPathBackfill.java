@@ -0,0 +1,125 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.model.Comment;
+import com.example.demo_springboot.repository.CommentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * One-off migration for Comment.path / Comment.depth: fills in rows written
+ * before the materialized path existed. Runs at startup and is a no-op once
+ * every comment has a path. Ids come from pooled id_sequences blocks, so a
+ * reply can have a smaller id than its parent; a reply whose parent has no
+ * path yet is left for the next pass, and passes repeat until one fills
+ * nothing.
+ */
+@Component
+public class CommentPathBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentPathBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CommentPathBackfill(CommentRepository commentRepository, TransactionTemplate transactionTemplate) {
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long filled = 0;
+        int passes = 0;
+        long[] pass;
+        // each pass fills at least the next level of every chain whose top
+        // already has a path, so this ends after at most MAX_DEPTH + 1 passes
+        do {
+            pass = fillPass();
+            filled += pass[0];
+            passes++;
+        } while (pass[0] > 0 && pass[1] > 0);
+        if (filled > 0)
+            log.info("Back-filled materialized paths for {} comments in {} passes", filled, passes);
+        if (pass[1] > 0)
+            log.warn("{} comments still have no path: no ancestor has one, or they are nested deeper than {}",
+                    pass[1], CommentPaths.MAX_DEPTH);
+    }
+
+    /**
+     * One walk over the comments without a path, in id order.
+     *
+     * @return {rows filled, rows skipped because their parent has no path}
+     */
+    private long[] fillPass() {
+        long lastId = 0;
+        long filled = 0;
+        long skipped = 0;
+        while (true) {
+            final long after = lastId;
+            long[] batchResult = transactionTemplate.execute(status -> fillBatch(after));
+            if (batchResult == null || batchResult[0] == 0)
+                break;
+            lastId = batchResult[1];
+            filled += batchResult[2];
+            skipped += batchResult[0] - batchResult[2];
+        }
+        return new long[] { filled, skipped };
+    }
+
+    /**
+     * @return {rows read, last id read, rows filled}
+     */
+    private long[] fillBatch(long afterId) {
+        List<Comment> batch = commentRepository.findByPathIsNullAndIdGreaterThanOrderByIdAsc(afterId,
+                PageRequest.of(0, BATCH_SIZE));
+        if (batch.isEmpty())
+            return new long[] { 0, afterId, 0 };
+
+        // paths of parents outside this batch, in one query
+        Set<Long> parentIds = new HashSet<>();
+        for (Comment c : batch) {
+            if (c.getParent() != null)
+                parentIds.add(c.getParent().getId());
+        }
+        Map<Long, String> paths = new HashMap<>();
+        Map<Long, Integer> depths = new HashMap<>();
+        if (!parentIds.isEmpty()) {
+            for (Object[] row : commentRepository.findPathsByIds(parentIds)) {
+                if (row[1] != null) {
+                    paths.put((Long) row[0], (String) row[1]);
+                    depths.put((Long) row[0], (Integer) row[2]);
+                }
+            }
+        }
+
+        int filled = 0;
+        for (Comment c : batch) {
+            if (c.getParent() == null) {
+                c.setPath(CommentPaths.childPath(null, c.getId()));
+                c.setDepth(0);
+            } else {
+                Long parentId = c.getParent().getId();
+                String parentPath = paths.get(parentId);
+                // the parent is filled later in this pass or in the next one;
+                // a reply past MAX_DEPTH would not fit the column at all
+                if (parentPath == null || depths.get(parentId) >= CommentPaths.MAX_DEPTH)
+                    continue;
+                c.setPath(CommentPaths.childPath(parentPath, c.getId()));
+                c.setDepth(depths.get(parentId) + 1);
+            }
+            // later rows in this batch may be replies to this one
+            paths.put(c.getId(), c.getPath());
+            depths.put(c.getId(), c.getDepth());
+            filled++;
+        }
+        return new long[] { batch.size(), batch.get(batch.size() - 1).getId(), filled };
+    }
+}
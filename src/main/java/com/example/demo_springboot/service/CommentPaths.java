@@ -0,0 +1,42 @@
+package com.example.demo_springboot.service;
+
+/**
+ * Helpers for Comment.path. Each segment is the comment id zero-padded to a
+ * fixed width plus a '/', so plain string order equals tree order (parents
+ * before children, siblings by id) and every descendant of a comment sorts
+ * inside [path, upperBound(path)).
+ */
+public final class CommentPaths {
+
+    private static final int SEGMENT_DIGITS = 12;
+    private static final int SEGMENT_LENGTH = SEGMENT_DIGITS + 1;
+
+    // length of the Comment.path column
+    public static final int MAX_PATH_LENGTH = 700;
+
+    /**
+     * Deepest reply whose path still fits the column; top-level comments are
+     * depth 0 and a comment at depth d has d + 1 segments.
+     */
+    public static final int MAX_DEPTH = MAX_PATH_LENGTH / SEGMENT_LENGTH - 1;
+
+    private CommentPaths() {
+    }
+
+    /**
+     * Path of a comment with the given id under parentPath (null for top-level).
+     */
+    public static String childPath(String parentPath, long id) {
+        String segment = String.format("%0" + SEGMENT_DIGITS + "d/", id);
+        return parentPath == null ? segment : parentPath + segment;
+    }
+
+    /**
+     * Exclusive upper bound of the subtree rooted at path: the trailing '/'
+     * is bumped to the next character ('0'), which sorts after any segment
+     * that can follow it.
+     */
+    public static String upperBound(String path) {
+        return path.substring(0, path.length() - 1) + (char) ('/' + 1);
+    }
+}
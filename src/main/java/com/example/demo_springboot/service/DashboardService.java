@@ -1,5 +1,19 @@
 package com.example.demo_springboot.service;
 
+import com.example.demo_springboot.DTO.AuthorView;
+import com.example.demo_springboot.DTO.CommentRow;
+import com.example.demo_springboot.DTO.CommentThreadNode;
+import com.example.demo_springboot.DTO.CommentView;
+import com.example.demo_springboot.DTO.CommunityView;
+import com.example.demo_springboot.DTO.FeedPage;
+import com.example.demo_springboot.DTO.FlagView;
+import com.example.demo_springboot.DTO.HashtagView;
+import com.example.demo_springboot.DTO.PostHashtagRow;
+import com.example.demo_springboot.DTO.PostRow;
+import com.example.demo_springboot.DTO.PostView;
+import com.example.demo_springboot.DTO.SubtreeEntry;
+import com.example.demo_springboot.DTO.SuggestionView;
+import com.example.demo_springboot.DTO.TrendingHashtagView;
 import com.example.demo_springboot.model.Comment;
 import com.example.demo_springboot.model.Hashtag;
 import com.example.demo_springboot.model.Post;
@@ -8,39 +22,138 @@ import com.example.demo_springboot.model.Community;
 import com.example.demo_springboot.model.Flag;
 import com.example.demo_springboot.repository.CommentRepository;
 import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.HashtagPostRepository;
 import com.example.demo_springboot.repository.HashtagRepository;
 import com.example.demo_springboot.repository.CommunityRepository;
 import com.example.demo_springboot.repository.FlagRepository;
+import com.example.demo_springboot.repository.HomeFeedRepository;
+import com.example.demo_springboot.repository.HomeFeedRepository.FeedKey;
+import com.example.demo_springboot.repository.ReferenceNameUpserter;
+import com.example.demo_springboot.service.ResourceVersions.Resource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.util.*;
 
 @Service
 public class DashboardService {
 
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_THREAD_DEPTH = 50;
+    private static final int MAX_MERGED_COMMUNITIES = 200;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_MEMBERSHIP_IDS = 500;
+    private static final int MAX_TRENDING = 50;
+
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
     private final HashtagRepository hashtagRepository;
+    private final HashtagPostRepository hashtagPostRepository;
     private final CommunityRepository communityRepository;
     private final FlagRepository flagRepository;
     private final com.example.demo_springboot.repository.UserRepository userRepository;
+    private final PostSearchIndex postSearchIndex;
+    private final ReferenceNameUpserter referenceNameUpserter;
+    private final HotFeed hotFeed;
+    private final HomeFeedRepository homeFeedRepository;
+    private final ResourceVersions resourceVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NameSuggestions nameSuggestions;
+    private final HashtagTrends hashtagTrends;
 
     public DashboardService(PostRepository postRepository, CommentRepository commentRepository,
-            HashtagRepository hashtagRepository, CommunityRepository communityRepository,
-            FlagRepository flagRepository, com.example.demo_springboot.repository.UserRepository userRepository) {
+            HashtagRepository hashtagRepository, HashtagPostRepository hashtagPostRepository,
+            CommunityRepository communityRepository, FlagRepository flagRepository, com.example.demo_springboot.repository.UserRepository userRepository,
+            PostSearchIndex postSearchIndex, ReferenceNameUpserter referenceNameUpserter, HotFeed hotFeed,
+            HomeFeedRepository homeFeedRepository, ResourceVersions resourceVersions,
+            ApplicationEventPublisher eventPublisher, NameSuggestions nameSuggestions, HashtagTrends hashtagTrends) {
         this.postRepository = postRepository;
         this.commentRepository = commentRepository;
         this.hashtagRepository = hashtagRepository;
+        this.hashtagPostRepository = hashtagPostRepository;
         this.communityRepository = communityRepository;
         this.flagRepository = flagRepository;
         this.userRepository = userRepository;
+        this.postSearchIndex = postSearchIndex;
+        this.referenceNameUpserter = referenceNameUpserter;
+        this.hotFeed = hotFeed;
+        this.homeFeedRepository = homeFeedRepository;
+        this.resourceVersions = resourceVersions;
+        this.eventPublisher = eventPublisher;
+        this.nameSuggestions = nameSuggestions;
+        this.hashtagTrends = hashtagTrends;
+    }
+
+    /**
+     * The post and its hashtag_posts rows commit together. The in-memory
+     * views (search index, hot feed, suggestions, trends, versions, stream)
+     * only see the post once it has committed.
+     */
+    @Transactional
+    public PostView createPost(Map<String, Object> payload) {
+        Post saved = postRepository.save(buildPost(payload));
+        if (!saved.getHashtags().isEmpty())
+            hashtagPostRepository.insertForPosts(List.of(saved.getId()));
+        afterCommit(() -> {
+            postSearchIndex.index(saved, saved.getHashtags());
+            hotFeed.recordPost(saved.getId(), saved.getCommunity() == null ? null : saved.getCommunity().getId(),
+                    saved.getCreatedAt());
+            nameSuggestions.hashtagsUsed(saved.getHashtags());
+            hashtagTrends.record(saved.getHashtags(), saved.getCreatedAt());
+        });
+        // both wait for the commit themselves
+        resourceVersions.bump(Resource.POSTS);
+        PostView view = postView(saved, saved.getHashtags(), 0);
+        eventPublisher.publishEvent(new LiveEventHub.PostCreated(view));
+        return view;
     }
 
-    public Map<String, Object> createPost(Map<String, Object> payload) {
+    /**
+     * Run {@code action} once the current transaction commits, or straight
+     * away outside one, like ResourceVersions.bump.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Rejects a create payload whose hashtag, community or flag names would
+     * not fit their columns. buildPost fails the same way; WriteBehindPipeline
+     * checks up front so the request gets the 400 instead of the flush.
+     */
+    void checkReferenceNames(Map<String, Object> payload) {
+        if (payload.get("hashtags") instanceof String text)
+            HashtagParser.parse(text).values().forEach(ReferenceNameUpserter::checkHashtagName);
+        if (payload.get("community") instanceof String community)
+            ReferenceNameUpserter.checkCommunityName(community.trim());
+        if (payload.get("flag") instanceof String flag)
+            ReferenceNameUpserter.checkFlagName(flag.trim());
+    }
+
+    /**
+     * Unsaved post for a create payload, with author, hashtags, community and
+     * flag resolved (missing hashtags, communities and flags are created).
+     * Also used by WriteBehindPipeline when it flushes queued posts.
+     */
+    Post buildPost(Map<String, Object> payload) {
         Post post = new Post();
         post.setTitle(String.valueOf(payload.getOrDefault("title", "")));
         post.setBody(String.valueOf(payload.getOrDefault("body", "")));
@@ -73,27 +186,7 @@ public class DashboardService {
         // support parsing hashtags string like "@one @two"
         Object hashtagsTextObj = payload.get("hashtags");
         if (hashtagsTextObj instanceof String) {
-            String text = ((String) hashtagsTextObj).trim();
-            if (!text.isEmpty()) {
-                java.util.regex.Pattern p = java.util.regex.Pattern.compile("@([A-Za-z0-9_-]+)");
-                java.util.regex.Matcher m = p.matcher(text);
-                java.util.Set<String> names = new java.util.HashSet<>();
-                while (m.find()) {
-                    names.add(m.group(1));
-                }
-                for (String name : names) {
-                    Hashtag h = hashtagRepository.findByNameIgnoreCase(name).orElseGet(() -> {
-                        try {
-                            return hashtagRepository.save(new Hashtag(null, name));
-                        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
-                            // race: another thread inserted the tag; try fetch again
-                            return hashtagRepository.findByNameIgnoreCase(name).orElse(null);
-                        }
-                    });
-                    if (h != null)
-                        post.getHashtags().add(h);
-                }
-            }
+            post.getHashtags().addAll(resolveHashtags((String) hashtagsTextObj));
         }
 
         // Community handling (optional) - expect a community name under 'community'
@@ -102,12 +195,12 @@ public class DashboardService {
             String communityName = ((String) communityObj).trim();
             if (!communityName.isEmpty()) {
                 Community community = communityRepository.findByNameIgnoreCase(communityName).orElseGet(() -> {
-                    try {
-                        return communityRepository.save(new Community(null, communityName));
-                    } catch (org.springframework.dao.DataIntegrityViolationException ex) {
-                        // race: another thread inserted the community; try fetch again
-                        return communityRepository.findByNameIgnoreCase(communityName).orElse(null);
-                    }
+                    // no-op if another request created it meanwhile
+                    referenceNameUpserter.insertCommunity(communityName);
+                    resourceVersions.bump(Resource.COMMUNITIES);
+                    Optional<Community> created = communityRepository.findByNameIgnoreCase(communityName);
+                    created.ifPresent(c -> afterCommit(() -> nameSuggestions.communityCreated(c)));
+                    return created.orElse(null);
                 });
                 if (community != null) {
                     post.setCommunity(community);
@@ -121,12 +214,9 @@ public class DashboardService {
             String flagName = ((String) flagObj).trim();
             if (!flagName.isEmpty()) {
                 Flag flag = flagRepository.findByNameIgnoreCase(flagName).orElseGet(() -> {
-                    try {
-                        return flagRepository.save(new Flag(null, flagName));
-                    } catch (org.springframework.dao.DataIntegrityViolationException ex) {
-                        // race: another thread inserted the flag; try fetch again
-                        return flagRepository.findByNameIgnoreCase(flagName).orElse(null);
-                    }
+                    referenceNameUpserter.insertFlag(flagName);
+                    resourceVersions.bump(Resource.FLAGS);
+                    return flagRepository.findByNameIgnoreCase(flagName).orElse(null);
                 });
                 if (flag != null) {
                     post.setFlag(flag);
@@ -134,24 +224,70 @@ public class DashboardService {
             }
         }
 
-        Post saved = postRepository.save(post);
-        return mapPost(saved);
+        return post;
+    }
+
+    /**
+     * Resolve every @tag in {@code text} to a Hashtag row with a constant
+     * number of statements however many tags there are: one lookup, one
+     * insert of the missing names and one re-read of those.
+     */
+    private List<Hashtag> resolveHashtags(String text) {
+        // lower-cased name -> first spelling seen
+        Map<String, String> names = HashtagParser.parse(text);
+        if (names.isEmpty())
+            return new ArrayList<>();
+
+        List<Hashtag> found = new ArrayList<>(hashtagRepository.findByNameIn(names.keySet()));
+        Set<String> missing = new HashSet<>(names.keySet());
+        for (Hashtag h : found)
+            missing.remove(h.getName().toLowerCase(Locale.ROOT));
+
+        if (!missing.isEmpty()) {
+            List<String> toInsert = new ArrayList<>();
+            for (String key : missing)
+                toInsert.add(names.get(key));
+            referenceNameUpserter.insertHashtags(toInsert);
+            List<Hashtag> created = hashtagRepository.findByNameIn(missing);
+            afterCommit(() -> created.forEach(nameSuggestions::hashtagCreated));
+            found.addAll(created);
+        }
+        return found;
+    }
+
+    public List<PostView> search(String q) {
+        return search(q, null, null, 0, DEFAULT_SEARCH_PAGE_SIZE);
     }
 
-    public List<Map<String, Object>> search(String q) {
-        if (q == null || q.trim().isEmpty())
+    /**
+     * Ranked full-text search served by {@link PostSearchIndex}; only the hits
+     * for the requested page are loaded from the database.
+     */
+    @Transactional(readOnly = true)
+    public List<PostView> search(String q, String hashtag, Long communityId, int page, int size) {
+        boolean noText = q == null || q.trim().isEmpty();
+        boolean noFilters = (hashtag == null || hashtag.isBlank()) && communityId == null;
+        if (noText && noFilters)
             return getAllPosts(null);
-        List<Post> found = postRepository
-                .findByTitleContainingIgnoreCaseOrBodyContainingIgnoreCaseOrderByCreatedAtDesc(q);
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Post p : found)
-            out.add(mapPost(p));
-        return out;
+
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        return mapPostsInOrder(postSearchIndex.search(q, hashtag, communityId, Math.max(page, 0), pageSize));
     }
 
-    public List<Map<String, Object>> getAllPosts(Long communityId) {
-        List<Map<String, Object>> out = new ArrayList<>();
-        List<Post> posts;
+    /**
+     * Hot feed page, ranked in memory by HotFeed; only the posts on the page
+     * are loaded. The cursor is opaque like the one of getFeedPage.
+     */
+    @Transactional(readOnly = true)
+    public FeedPage getHotFeed(Long communityId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        HotFeed.Page page = hotFeed.page(communityId, cursor, size);
+        return new FeedPage(mapPostsInOrder(page.postIds()), page.nextCursor(), page.hasNext());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PostView> getAllPosts(Long communityId) {
+        List<PostRow> posts;
 
         if (communityId != null) {
             posts = postRepository.findByCommunityIdOrderByCreatedAtDesc(communityId);
@@ -159,40 +295,248 @@ public class DashboardService {
             posts = postRepository.findAllOrderByCreatedAtDesc();
         }
 
-        for (Post p : posts)
-            out.add(mapPost(p));
-        return out;
+        return mapPosts(posts);
+    }
+
+    /**
+     * Keyset-paginated feed. {@code cursor} is the opaque token returned as
+     * {@code nextCursor} by the previous page (null for the first page), so
+     * every page is a bounded index seek regardless of how deep the client is.
+     */
+    @Transactional(readOnly = true)
+    public FeedPage getFeedPage(Long communityId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        // fetch one extra row to learn whether another page exists
+        Pageable pageable = PageRequest.of(0, size + 1);
+        FeedCursor after = cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
+
+        List<PostRow> posts;
+        if (communityId != null) {
+            posts = after == null
+                    ? postRepository.findCommunityFeedFirstPage(communityId, pageable)
+                    : postRepository.findCommunityFeedAfter(communityId, after.createdAt(), after.id(), pageable);
+        } else {
+            posts = after == null
+                    ? postRepository.findFeedFirstPage(pageable)
+                    : postRepository.findFeedAfter(after.createdAt(), after.id(), pageable);
+        }
+
+        boolean hasNext = posts.size() > size;
+        if (hasNext)
+            posts = posts.subList(0, size);
+
+        String nextCursor = null;
+        if (hasNext) {
+            PostRow last = posts.get(posts.size() - 1);
+            nextCursor = new FeedCursor(last.createdAt(), last.id()).encode();
+        }
+        return new FeedPage(mapPosts(posts), nextCursor, hasNext);
+    }
+
+    /**
+     * Home feed of a user: posts from every community they joined, newest
+     * first, keyset-paginated with the same cursor as getFeedPage.
+     *
+     * Up to MAX_MERGED_COMMUNITIES communities are read with one bounded seek
+     * per community (a single UNION ALL statement) and k-way merged; beyond
+     * that a single IN query over the community index is cheaper.
+     * Returns null if the user does not exist (controller maps to 404).
+     */
+    @Transactional(readOnly = true)
+    public FeedPage getUserFeed(Long userId, String cursor, int limit) {
+        if (!userRepository.existsById(userId))
+            return null;
+        int size = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        FeedCursor after = cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
+        Instant beforeCreatedAt = after == null ? null : after.createdAt();
+        Long beforeId = after == null ? null : after.id();
+
+        List<Long> communityIds = userRepository.findJoinedCommunityIds(userId);
+        List<FeedKey> keys;
+        if (communityIds.size() <= MAX_MERGED_COMMUNITIES) {
+            // one row more than the page to learn whether another page exists
+            Map<Long, List<FeedKey>> perCommunity = homeFeedRepository.latestPerCommunity(communityIds,
+                    beforeCreatedAt, beforeId, size + 1);
+            keys = FeedMerger.mergeNewestFirst(perCommunity.values(), size + 1);
+        } else {
+            keys = homeFeedRepository.latestInCommunities(communityIds, beforeCreatedAt, beforeId, size + 1);
+        }
+
+        boolean hasNext = keys.size() > size;
+        if (hasNext)
+            keys = keys.subList(0, size);
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (FeedKey key : keys)
+            ids.add(key.id());
+
+        String nextCursor = null;
+        if (hasNext) {
+            FeedKey last = keys.get(keys.size() - 1);
+            nextCursor = new FeedCursor(last.createdAt(), last.id()).encode();
+        }
+        return new FeedPage(mapPostsInOrder(ids), nextCursor, hasNext);
+    }
+
+    /**
+     * Posts tagged {@code name} (case-insensitive, leading # ignored), newest
+     * first, keyset-paginated with the same cursor as getFeedPage. Each page
+     * is one seek on the (hashtag_id, created_at, post_id) index of
+     * hashtag_posts plus one row query.
+     * Returns null if there is no such hashtag (controller maps to 404).
+     */
+    @Transactional(readOnly = true)
+    public FeedPage getHashtagPosts(String name, String cursor, int limit) {
+        String tag = name == null ? "" : name.trim();
+        if (tag.startsWith("#"))
+            tag = tag.substring(1);
+        Hashtag hashtag = hashtagRepository.findByNameIgnoreCase(tag).orElse(null);
+        if (hashtag == null)
+            return null;
+        int size = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        // fetch one extra key to learn whether another page exists
+        Pageable pageable = PageRequest.of(0, size + 1);
+        FeedCursor after = cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
+
+        List<Object[]> keys = after == null
+                ? hashtagPostRepository.findNewest(hashtag.getId(), pageable)
+                : hashtagPostRepository.findNewestAfter(hashtag.getId(), after.createdAt(), after.id(), pageable);
+        boolean hasNext = keys.size() > size;
+        if (hasNext)
+            keys = keys.subList(0, size);
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Object[] key : keys)
+            ids.add((Long) key[0]);
+
+        String nextCursor = null;
+        if (hasNext) {
+            Object[] last = keys.get(keys.size() - 1);
+            nextCursor = new FeedCursor((Instant) last[1], (Long) last[0]).encode();
+        }
+        return new FeedPage(mapPostsInOrder(ids), nextCursor, hasNext);
     }
 
-    public Map<String, Object> getPost(Long id) {
-        return postRepository.findById(id).map(this::mapPost).orElse(null);
+    /**
+     * Hashtags used by the most posts in the trending window, see HashtagTrends.
+     */
+    public List<TrendingHashtagView> getTrendingHashtags(int limit) {
+        return hashtagTrends.trending(Math.max(1, Math.min(limit, MAX_TRENDING)));
     }
 
-    public List<Map<String, Object>> getPostComments(Long id) {
+    @Transactional(readOnly = true)
+    public PostView getPost(Long id) {
+        return postRepository.findRowById(id)
+                .map(row -> mapPosts(List.of(row)).get(0))
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommentView> getPostComments(Long id) {
         // Return only top-level comments for the post (where parent is NULL).
         // If the post doesn't exist, return null so controller can map to 404.
         if (!postRepository.existsById(id))
             return null;
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Comment c : commentRepository.findByPostIdAndParentIsNull(id))
-            out.add(mapComment(c));
-        return out;
+        return mapComments(commentRepository.findByPostIdAndParentIsNull(id));
     }
 
     /**
      * Return direct children (one level) of the given comment id.
      * Returns null if the parent comment does not exist (controller maps to 404).
      */
-    public List<Map<String, Object>> getCommentChildren(Long commentId) {
+    @Transactional(readOnly = true)
+    public List<CommentView> getCommentChildren(Long commentId) {
         if (!commentRepository.existsById(commentId))
             return null;
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Comment c : commentRepository.findByParentId(commentId))
-            out.add(mapComment(c));
+        return mapComments(commentRepository.findByParentId(commentId));
+    }
+
+    /**
+     * Whole comment thread of a post from one query. The tree is assembled in
+     * memory in O(n); at every level at most {@code limit} replies are kept
+     * and nesting stops after {@code depth} levels. Nodes that were cut carry
+     * {@code hasMoreReplies = true} so the client can fall back to
+     * /api/comments/{id}/comments for them.
+     * Returns null if the post does not exist (controller maps to 404).
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPostThread(Long postId, int depth, int limit) {
+        if (!postRepository.existsById(postId))
+            return null;
+        int maxDepth = Math.max(1, Math.min(depth, MAX_THREAD_DEPTH));
+        int perLevel = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+
+        List<CommentRow> all = commentRepository.findByPostIdOrderByCreatedAtAsc(postId);
+        List<CommentRow> roots = new ArrayList<>();
+        Map<Long, List<CommentRow>> children = new HashMap<>();
+        for (CommentRow c : all) {
+            if (c.parentId() == null)
+                roots.add(c);
+            else
+                children.computeIfAbsent(c.parentId(), k -> new ArrayList<>()).add(c);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("postId", postId);
+        response.put("totalComments", all.size());
+        response.put("comments", mapThreadLevel(roots, children, 1, maxDepth, perLevel));
+        response.put("hasMore", roots.size() > perLevel);
+        return response;
+    }
+
+    private List<CommentThreadNode> mapThreadLevel(List<CommentRow> level, Map<Long, List<CommentRow>> children,
+            int currentDepth, int maxDepth, int perLevel) {
+        List<CommentThreadNode> out = new ArrayList<>();
+        for (CommentRow c : level.subList(0, Math.min(level.size(), perLevel))) {
+            List<CommentRow> replies = children.getOrDefault(c.id(), List.of());
+            CommentView view = CommentView.from(c, replies.size());
+            if (currentDepth < maxDepth) {
+                out.add(new CommentThreadNode(view,
+                        mapThreadLevel(replies, children, currentDepth + 1, maxDepth, perLevel),
+                        replies.size() > perLevel));
+            } else {
+                out.add(new CommentThreadNode(view, List.of(), !replies.isEmpty()));
+            }
+        }
         return out;
     }
 
-    public Map<String, Object> createComment(Map<String, Object> payload) {
+    /**
+     * A comment and its entire subtree as a flat list in render order (each
+     * entry carries its depth), plus the number of descendants.
+     * Returns null if the comment does not exist (controller maps to 404).
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCommentSubtree(Long commentId) {
+        Comment root = commentRepository.findById(commentId).orElse(null);
+        if (root == null)
+            return null;
+        if (root.getPath() == null)
+            throw new IllegalStateException("comment paths are still being back-filled");
+
+        String upper = CommentPaths.upperBound(root.getPath());
+        List<SubtreeEntry> comments = new ArrayList<>();
+        for (CommentRow c : commentRepository.findSubtree(root.getPath(), upper))
+            comments.add(new SubtreeEntry(CommentView.from(c), c.depth() - root.getDepth()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("comments", comments);
+        response.put("descendantCount", comments.size() - 1);
+        return response;
+    }
+
+    /**
+     * Number of replies at any depth below a comment, counted with an index
+     * range scan. Returns null if the comment does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Long countCommentDescendants(Long commentId) {
+        Comment root = commentRepository.findById(commentId).orElse(null);
+        if (root == null || root.getPath() == null)
+            return null;
+        return commentRepository.countInPathRange(root.getPath(), CommentPaths.upperBound(root.getPath())) - 1;
+    }
+
+    @Transactional
+    public CommentView createComment(Map<String, Object> payload) {
         Object postIdObj = payload.get("postId");
         if (postIdObj == null)
             throw new IllegalArgumentException("postId is required");
@@ -228,141 +572,156 @@ public class DashboardService {
             } catch (Exception ignored) {
             }
         }
+        // a deeper path would not fit Comment.path
+        if (comment.getParent() != null && comment.getParent().getDepth() >= CommentPaths.MAX_DEPTH)
+            throw new IllegalArgumentException("replies can be nested at most " + CommentPaths.MAX_DEPTH + " levels deep");
 
         Comment saved = commentRepository.save(comment);
-        return mapComment(saved);
-    }
-
-    private Map<String, Object> mapPost(Post p) {
-        Map<String, Object> m = new HashMap<>();
-        m.put("id", p.getId());
-        m.put("title", p.getTitle());
-        m.put("body", p.getBody());
-        m.put("createdAt", p.getCreatedAt() == null ? null : p.getCreatedAt().toString());
-
-        // Include author details
-        if (p.getAuthor() != null) {
-            Map<String, Object> authorMap = new HashMap<>();
-            authorMap.put("id", p.getAuthor().getId());
-            authorMap.put("name", p.getAuthor().getName());
-            m.put("author", authorMap);
-        } else {
-            m.put("author", null);
-        }
-
-        List<Map<String, Object>> tags = new ArrayList<>();
-        for (Hashtag h : p.getHashtags())
-            tags.add(Map.of("id", h.getId(), "name", h.getName()));
-        m.put("hashtags", tags);
-
-        // Include community details
-        if (p.getCommunity() != null) {
-            Map<String, Object> communityMap = new HashMap<>();
-            communityMap.put("id", p.getCommunity().getId());
-            communityMap.put("name", p.getCommunity().getName());
-            m.put("community", communityMap);
-        } else {
-            m.put("community", null);
-        }
-
-        // Include flag details
-        if (p.getFlag() != null) {
-            Map<String, Object> flagMap = new HashMap<>();
-            flagMap.put("id", p.getFlag().getId());
-            flagMap.put("name", p.getFlag().getName());
-            m.put("flag", flagMap);
-        } else {
-            m.put("flag", null);
-        }
 
-        // Include count of only top-level comments (where parent is NULL) for list
-        // views
-        int commentCount = 0;
-        if (p.getComments() != null) {
-            for (Comment c : p.getComments()) {
-                if (c.getParent() == null) {
-                    commentCount++;
-                }
-            }
+        // materialized path needs the generated id; flushed with the transaction.
+        // If the parent has no path yet, CommentPathBackfill fills both in later.
+        Comment parent = saved.getParent();
+        if (parent == null) {
+            saved.setPath(CommentPaths.childPath(null, saved.getId()));
+            saved.setDepth(0);
+        } else if (parent.getPath() != null) {
+            saved.setPath(CommentPaths.childPath(parent.getPath(), saved.getId()));
+            saved.setDepth(parent.getDepth() + 1);
         }
-        m.put("commentCount", commentCount);
 
-        return m;
+        // keep the denormalized counters in step, incremented in SQL
+        if (saved.getParent() == null)
+            postRepository.incrementTopLevelCommentCount(pId);
+        else
+            commentRepository.incrementReplyCount(saved.getParent().getId());
+
+        Long communityId = post.getCommunity() == null ? null : post.getCommunity().getId();
+        afterCommit(() -> hotFeed.recordComment(pId, communityId, saved.getCreatedAt()));
+        resourceVersions.bump(Resource.POSTS);
+        CommentView view = commentView(saved, 0);
+        // delivered to stream subscribers after commit
+        eventPublisher.publishEvent(new LiveEventHub.CommentCreated(view, communityId));
+        return view;
     }
 
-    private Map<String, Object> mapComment(Comment c) {
-        Map<String, Object> m = new HashMap<>();
-        m.put("id", c.getId());
-        m.put("postId", c.getPost() == null ? null : c.getPost().getId());
-        m.put("parentId", c.getParent() == null ? null : c.getParent().getId());
-        m.put("body", c.getBody());
-        m.put("createdAt", c.getCreatedAt() == null ? null : c.getCreatedAt().toString());
+    /**
+     * Turn a page of post rows into views with one extra query that loads all
+     * their hashtags.
+     */
+    private List<PostView> mapPosts(List<PostRow> posts) {
+        List<PostView> out = new ArrayList<>(posts.size());
+        if (posts.isEmpty())
+            return out;
 
-        // Include author details
-        if (c.getAuthor() != null) {
-            Map<String, Object> authorMap = new HashMap<>();
-            authorMap.put("id", c.getAuthor().getId());
-            authorMap.put("name", c.getAuthor().getName());
-            m.put("author", authorMap);
-        } else {
-            m.put("author", null);
-        }
+        List<Long> ids = new ArrayList<>(posts.size());
+        for (PostRow p : posts)
+            ids.add(p.id());
 
-        // Include reply count instead of all replies for performance
-        int replyCount = c.getReplies() != null ? c.getReplies().size() : 0;
-        m.put("replyCount", replyCount);
+        Map<Long, List<HashtagView>> tagsByPost = new HashMap<>();
+        for (PostHashtagRow row : postRepository.findHashtagsByPostIds(ids))
+            tagsByPost.computeIfAbsent(row.postId(), k -> new ArrayList<>())
+                    .add(new HashtagView(row.hashtagId(), row.hashtagName()));
 
-        return m;
+        for (PostRow p : posts)
+            out.add(PostView.from(p, tagsByPost.getOrDefault(p.id(), List.of())));
+        return out;
     }
 
-    public List<Map<String, Object>> getAllCommunities() {
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Community c : communityRepository.findAll()) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", c.getId());
-            m.put("name", c.getName());
-            out.add(m);
+    /**
+     * Views for the given post ids, in the given order (ids that no longer
+     * exist are skipped).
+     */
+    private List<PostView> mapPostsInOrder(List<Long> ids) {
+        if (ids.isEmpty())
+            return new ArrayList<>();
+        Map<Long, PostRow> byId = new HashMap<>();
+        for (PostRow row : postRepository.findRowsByIdIn(ids))
+            byId.put(row.id(), row);
+        List<PostRow> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PostRow row = byId.get(id);
+            if (row != null)
+                ordered.add(row);
         }
+        return mapPosts(ordered);
+    }
+
+    /**
+     * View of a post entity that was just written (createPost, and the
+     * write-behind flush for stream events).
+     */
+    PostView postView(Post p, Collection<Hashtag> hashtags, int commentCount) {
+        List<HashtagView> tags = new ArrayList<>(hashtags.size());
+        for (Hashtag h : hashtags)
+            tags.add(new HashtagView(h.getId(), h.getName()));
+        return new PostView(p.getId(), p.getTitle(), p.getBody(), p.getCreatedAt(),
+                p.getAuthor() == null ? null : new AuthorView(p.getAuthor().getId(), p.getAuthor().getName()),
+                tags,
+                p.getCommunity() == null ? null : CommunityView.of(p.getCommunity().getId(), p.getCommunity().getName()),
+                p.getFlag() == null ? null : new FlagView(p.getFlag().getId(), p.getFlag().getName()),
+                commentCount);
+    }
+
+    private List<CommentView> mapComments(List<CommentRow> comments) {
+        List<CommentView> out = new ArrayList<>(comments.size());
+        for (CommentRow c : comments)
+            out.add(CommentView.from(c));
         return out;
     }
 
-    public List<Map<String, Object>> searchCommunities(String query) {
-        List<Map<String, Object>> out = new ArrayList<>();
+    /**
+     * View of a comment entity that was just written (createComment).
+     */
+    private CommentView commentView(Comment c, int replyCount) {
+        return new CommentView(c.getId(),
+                c.getPost() == null ? null : c.getPost().getId(),
+                c.getParent() == null ? null : c.getParent().getId(),
+                c.getBody(), c.getCreatedAt(),
+                c.getAuthor() == null ? null : new AuthorView(c.getAuthor().getId(), c.getAuthor().getName()),
+                replyCount);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommunityView> getAllCommunities() {
+        return mapCommunities(communityRepository.findAll());
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommunityView> searchCommunities(String query) {
         String searchQuery = query == null ? "" : query.trim();
 
-        List<Community> communities;
         if (searchQuery.isEmpty()) {
             // Return empty list if no query provided
-            return out;
-        } else {
-            // Search communities by name and limit to top 5 results
-            Pageable topFive = PageRequest.of(0, 5, Sort.by("name").ascending());
-            communities = communityRepository.findByNameContainingIgnoreCase(searchQuery, topFive);
+            return new ArrayList<>();
         }
+        // Search communities by name and limit to top 5 results
+        Pageable topFive = PageRequest.of(0, 5, Sort.by("name").ascending());
+        return mapCommunities(communityRepository.findByNameContainingIgnoreCase(searchQuery, topFive));
+    }
 
-        for (Community c : communities) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", c.getId());
-            m.put("name", c.getName());
-            out.add(m);
-        }
-        return out;
+    /**
+     * Typeahead over community names from the in-memory index: names
+     * starting with {@code query} first, then names containing it, each
+     * group by member count.
+     */
+    public List<SuggestionView> suggestCommunities(String query, int limit) {
+        return nameSuggestions.suggestCommunities(query, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
     }
 
+    /**
+     * Typeahead over hashtag names, ranked like suggestCommunities by post count.
+     */
+    public List<SuggestionView> suggestHashtags(String query, int limit) {
+        return nameSuggestions.suggestHashtags(query, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    @Transactional(readOnly = true)
     public Map<String, Object> getCommunitiesPaginated(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
         Page<Community> communityPage = communityRepository.findAll(pageable);
 
-        List<Map<String, Object>> communities = new ArrayList<>();
-        for (Community c : communityPage.getContent()) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", c.getId());
-            m.put("name", c.getName());
-            communities.add(m);
-        }
-
         Map<String, Object> response = new HashMap<>();
-        response.put("content", communities);
+        response.put("content", mapCommunities(communityPage.getContent()));
         response.put("currentPage", communityPage.getNumber());
         response.put("totalPages", communityPage.getTotalPages());
         response.put("totalElements", communityPage.getTotalElements());
@@ -371,32 +730,41 @@ public class DashboardService {
         return response;
     }
 
-    public List<Map<String, Object>> getAllFlags() {
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Flag f : flagRepository.findAll()) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", f.getId());
-            m.put("name", f.getName());
-            out.add(m);
-        }
+    @Transactional(readOnly = true)
+    public List<FlagView> getAllFlags() {
+        List<FlagView> out = new ArrayList<>();
+        for (Flag f : flagRepository.findAll())
+            out.add(new FlagView(f.getId(), f.getName()));
         return out;
     }
 
+    /**
+     * Join or leave with direct statements on user_communities: leaving is a
+     * DELETE, joining an INSERT IGNORE, and memberCount moves by the rows
+     * actually changed, so concurrent toggles cannot skew it.
+     */
+    @Transactional
     public Map<String, Object> toggleCommunityMembership(Long userId, Long communityId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        if (!userRepository.existsById(userId))
+            throw new IllegalArgumentException("User not found");
         Community community = communityRepository.findById(communityId)
                 .orElseThrow(() -> new IllegalArgumentException("Community not found"));
 
         boolean isJoined;
-        if (user.getJoinedCommunities().contains(community)) {
-            user.getJoinedCommunities().remove(community);
+        if (userRepository.deleteMembership(userId, communityId) > 0) {
             isJoined = false;
+            communityRepository.adjustMemberCount(communityId, -1);
+            nameSuggestions.membershipChanged(communityId, false);
         } else {
-            user.getJoinedCommunities().add(community);
             isJoined = true;
+            // 0 when a concurrent toggle joined first
+            if (userRepository.insertMembership(userId, communityId) > 0) {
+                communityRepository.adjustMemberCount(communityId, 1);
+                nameSuggestions.membershipChanged(communityId, true);
+            }
         }
-        userRepository.save(user);
+        // /communities lists member counts
+        resourceVersions.bump(Resource.COMMUNITIES);
 
         Map<String, Object> result = new HashMap<>();
         result.put("isJoined", isJoined);
@@ -405,17 +773,36 @@ public class DashboardService {
         return result;
     }
 
-    public List<Map<String, Object>> getUserJoinedCommunities(Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        List<Map<String, Object>> out = new ArrayList<>();
-        if (user != null && user.getJoinedCommunities() != null) {
-            for (Community c : user.getJoinedCommunities()) {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", c.getId());
-                m.put("name", c.getName());
-                out.add(m);
-            }
+    /**
+     * Joined or not for each of {@code communityIds}, in one query. Throws
+     * IllegalArgumentException for more than MAX_MEMBERSHIP_IDS ids.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Boolean> getMemberships(Long userId, Collection<Long> communityIds) {
+        if (communityIds.size() > MAX_MEMBERSHIP_IDS)
+            throw new IllegalArgumentException("at most " + MAX_MEMBERSHIP_IDS + " ids");
+        Map<Long, Boolean> out = new LinkedHashMap<>();
+        for (Long id : communityIds)
+            out.put(id, false);
+        if (!communityIds.isEmpty()) {
+            for (Long id : userRepository.findJoinedAmong(userId, communityIds))
+                out.put(id, true);
         }
         return out;
     }
+
+    @Transactional(readOnly = true)
+    public List<CommunityView> getUserJoinedCommunities(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null || user.getJoinedCommunities() == null)
+            return new ArrayList<>();
+        return mapCommunities(user.getJoinedCommunities());
+    }
+
+    private List<CommunityView> mapCommunities(Collection<Community> communities) {
+        List<CommunityView> out = new ArrayList<>(communities.size());
+        for (Community c : communities)
+            out.add(new CommunityView(c.getId(), c.getName(), c.getMemberCount()));
+        return out;
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.demo_springboot.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the post feed. Encodes the (createdAt, id) of the
+ * last post on a page so the next page can seek past it instead of using an
+ * offset.
+ */
+public record FeedCursor(Instant createdAt, Long id) {
+
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token produced by {@link #encode()}.
+     * Throws IllegalArgumentException for anything malformed (controller maps to 400).
+     */
+    public static FeedCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("invalid cursor");
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new FeedCursor(createdAt, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // NumberFormatException and bad base64 both land here
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.repository.HomeFeedRepository.FeedKey;
+
+import java.util.*;
+
+/**
+ * k-way merge for the home feed: combines per-community key lists, each
+ * already newest first, into the newest keys overall with a heap of list
+ * heads, in O(limit * log k).
+ */
+public final class FeedMerger {
+
+    private FeedMerger() {
+    }
+
+    public static List<FeedKey> mergeNewestFirst(Collection<List<FeedKey>> lists, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, lists.size()),
+                (a, b) -> FeedKey.NEWEST_FIRST.compare(a.key(), b.key()));
+        for (List<FeedKey> list : lists) {
+            if (!list.isEmpty())
+                heads.add(new Head(list, 0));
+        }
+
+        List<FeedKey> out = new ArrayList<>(limit);
+        while (out.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            out.add(head.key());
+            if (head.index() + 1 < head.list().size())
+                heads.add(new Head(head.list(), head.index() + 1));
+        }
+        return out;
+    }
+
+    private record Head(List<FeedKey> list, int index) {
+        FeedKey key() {
+            return list.get(index);
+        }
+    }
+}
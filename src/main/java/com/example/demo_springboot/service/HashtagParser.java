@@ -0,0 +1,44 @@
+package com.example.demo_springboot.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds the @tags in post text: an '@' followed by one or more of
+ * [A-Za-z0-9_-], wherever it appears. Same matches as the regex
+ * {@code @([A-Za-z0-9_-]+)} with find(), written as a single pass over the
+ * chars because it runs on every post create (see TagParsingBenchmark).
+ */
+public final class HashtagParser {
+
+    private HashtagParser() {
+    }
+
+    /**
+     * Lower-cased name -> first spelling seen, in order of appearance. Tag
+     * names are unique case-insensitively.
+     */
+    public static Map<String, String> parse(String text) {
+        Map<String, String> names = new LinkedHashMap<>();
+        if (text == null)
+            return names;
+        int n = text.length();
+        int i = text.indexOf('@');
+        while (i >= 0) {
+            int end = i + 1;
+            while (end < n && isTagChar(text.charAt(end)))
+                end++;
+            if (end > i + 1) {
+                String tag = text.substring(i + 1, end);
+                names.putIfAbsent(tag.toLowerCase(Locale.ROOT), tag);
+            }
+            i = text.indexOf('@', end);
+        }
+        return names;
+    }
+
+    private static boolean isTagChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.repository.HashtagPostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migration for HashtagPost: copies posts_hashtags rows written before
+ * hashtag_posts existed, or lost between a post's insert and its copy.
+ * Runs at startup and is a no-op once the two tables agree.
+ */
+@Component
+public class HashtagPostBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(HashtagPostBackfill.class);
+
+    private final HashtagPostRepository hashtagPostRepository;
+
+    public HashtagPostBackfill(HashtagPostRepository hashtagPostRepository) {
+        this.hashtagPostRepository = hashtagPostRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int copied = hashtagPostRepository.insertMissing();
+        if (copied > 0)
+            log.info("Back-filled {} hashtag_posts rows", copied);
+    }
+}
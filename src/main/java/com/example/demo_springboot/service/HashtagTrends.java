@@ -0,0 +1,202 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.TrendingHashtagView;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.HashtagTrendBucket;
+import com.example.demo_springboot.repository.HashtagRepository;
+import com.example.demo_springboot.repository.HashtagTrendBucketRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trending hashtags: how many posts used each tag over the last
+ * app.trending.window-minutes, counted in memory.
+ *
+ * The window is a ring of app.trending.bucket-minutes buckets, each a map
+ * of hashtag id -> uses for the posts created in that bucket. A use touches
+ * one counter; the slot of a bucket that has slid out of the window is
+ * replaced by a fresh one the first time a newer bucket needs it, so the
+ * window moves without a sweep. Reading sums the live buckets, which is
+ * proportional to the tags used in the window, not to the posts.
+ *
+ * Every snapshot interval the live buckets are written to
+ * hashtag_trend_buckets. On startup the snapshot is loaded and posts
+ * created since are replayed, as HotFeed does for its scores.
+ */
+@Component
+public class HashtagTrends {
+
+    private static final Logger log = LoggerFactory.getLogger(HashtagTrends.class);
+
+    private record Slot(long bucket, Map<Long, LongAdder> uses) {
+    }
+
+    private final PostRepository postRepository;
+    private final HashtagRepository hashtagRepository;
+    private final HashtagTrendBucketRepository bucketRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Slot> slots;
+
+    public HashtagTrends(PostRepository postRepository, HashtagRepository hashtagRepository,
+            HashtagTrendBucketRepository bucketRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.trending.window-minutes:360}") long windowMinutes,
+            @Value("${app.trending.bucket-minutes:5}") long bucketMinutes) {
+        this.postRepository = postRepository;
+        this.hashtagRepository = hashtagRepository;
+        this.bucketRepository = bucketRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bucketMillis = bucketMinutes * 60_000;
+        this.slots = new AtomicReferenceArray<>((int) Math.max(1, windowMinutes / bucketMinutes));
+        clear();
+    }
+
+    /**
+     * Count one use of each of {@code hashtags} by a post created at {@code at}.
+     */
+    public void record(Collection<Hashtag> hashtags, Instant at) {
+        Instant when = at == null ? Instant.now() : at;
+        for (Hashtag h : hashtags)
+            add(h.getId(), when, 1);
+    }
+
+    /**
+     * Most used hashtags in the window, most uses first, ties by id (newer
+     * tags first).
+     */
+    public List<TrendingHashtagView> trending(int limit) {
+        long now = currentBucket();
+        Map<Long, Long> totals = new HashMap<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (isLive(slot.bucket(), now))
+                slot.uses().forEach((id, uses) -> totals.merge(id, uses.sum(), Long::sum));
+        }
+
+        List<Map.Entry<Long, Long>> top = new ArrayList<>(totals.entrySet());
+        top.sort(Map.Entry.<Long, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed()));
+        if (top.size() > limit)
+            top = top.subList(0, limit);
+
+        Map<Long, String> names = new HashMap<>();
+        for (Hashtag h : hashtagRepository.findAllById(top.stream().map(Map.Entry::getKey).toList()))
+            names.put(h.getId(), h.getName());
+        List<TrendingHashtagView> out = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Long> e : top) {
+            String name = names.get(e.getKey());
+            if (name != null)
+                out.add(new TrendingHashtagView(e.getKey(), name, e.getValue()));
+        }
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant windowStart = Instant.ofEpochMilli((currentBucket() - slots.length() + 1) * bucketMillis);
+        Instant since = windowStart;
+        List<HashtagTrendBucket> saved = bucketRepository.findAll();
+        clear();
+        for (HashtagTrendBucket b : saved) {
+            add(b.getHashtagId(), b.getBucketStart(), b.getUses());
+            if (b.getSavedAt().isAfter(since))
+                since = b.getSavedAt();
+        }
+        replaySince(since);
+        log.info("Hashtag trends loaded: {} buckets from snapshot, posts replayed since {}", saved.size(), since);
+    }
+
+    /**
+     * Recount the window from posts, e.g. after a bulk import.
+     */
+    public void rebuildFromDatabase() {
+        clear();
+        replaySince(Instant.ofEpochMilli((currentBucket() - slots.length() + 1) * bucketMillis));
+    }
+
+    @Scheduled(initialDelayString = "${app.trending.snapshot-interval-ms:60000}",
+            fixedDelayString = "${app.trending.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        long now = currentBucket();
+        Timestamp savedAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (!isLive(slot.bucket(), now))
+                continue;
+            Timestamp bucketStart = new Timestamp(slot.bucket() * bucketMillis);
+            slot.uses().forEach((id, uses) -> rows.add(new Object[] { id, bucketStart, uses.sum(), savedAt }));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM hashtag_trend_buckets");
+            jdbcTemplate.batchUpdate("INSERT INTO hashtag_trend_buckets (hashtag_id, bucket_start, uses, saved_at) "
+                    + "VALUES (?, ?, ?, ?)", rows);
+        });
+    }
+
+    private void replaySince(Instant since) {
+        for (Object[] row : postRepository.findHashtagUsesSince(since))
+            add((Long) row[0], (Instant) row[1], 1);
+    }
+
+    private void add(long hashtagId, Instant at, long uses) {
+        long now = currentBucket();
+        // a clock running ahead on another writer must not open a future bucket
+        long bucket = Math.min(Math.floorDiv(at.toEpochMilli(), bucketMillis), now);
+        if (!isLive(bucket, now))
+            return;
+        Slot slot = slotFor(bucket);
+        if (slot != null)
+            slot.uses().computeIfAbsent(hashtagId, k -> new LongAdder()).add(uses);
+    }
+
+    /**
+     * The slot holding {@code bucket}, taking it over from an expired bucket
+     * if needed; null if a newer bucket already owns it.
+     */
+    private Slot slotFor(long bucket) {
+        int i = (int) Math.floorMod(bucket, (long) slots.length());
+        while (true) {
+            Slot slot = slots.get(i);
+            if (slot.bucket() == bucket)
+                return slot;
+            if (slot.bucket() > bucket)
+                return null;
+            Slot fresh = new Slot(bucket, new ConcurrentHashMap<>());
+            if (slots.compareAndSet(i, slot, fresh))
+                return fresh;
+        }
+    }
+
+    private boolean isLive(long bucket, long now) {
+        return bucket <= now && bucket > now - slots.length();
+    }
+
+    private long currentBucket() {
+        return Math.floorDiv(System.currentTimeMillis(), bucketMillis);
+    }
+
+    private void clear() {
+        for (int i = 0; i < slots.length(); i++)
+            slots.set(i, new Slot(Long.MIN_VALUE, Map.of()));
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.model.PostScore;
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.PostScoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory "hot" ranking of posts, overall and per community.
+ *
+ * A post's score is the sum of its events (creation, each comment), each
+ * weighted by exp(lambda * (eventTime - epoch)) with lambda = ln 2 / half-life.
+ * Measured at any fixed instant this equals a sum of exponentially decayed
+ * events, so ordering by the stored score is ordering by hotness, and a new
+ * event only touches its own post: O(log n) per comment. Recent comment
+ * velocity therefore dominates, and idle posts fade by half every half-life.
+ *
+ * Every snapshot interval the epoch is moved forward when it is more than a
+ * half-life old (rescaling all scores, which keeps doubles in range and
+ * drops posts that have decayed to nothing), and the scores are written to
+ * post_scores. On startup the snapshot is loaded and posts and comments
+ * created since are replayed from their tables.
+ *
+ * Writes are serialized on this object; pages are read lock-free from
+ * skip lists in O(log n + page).
+ */
+@Component
+public class HotFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(HotFeed.class);
+
+    // key of the ranking across all communities
+    private static final long ALL = -1L;
+    // ten half-lives without activity
+    private static final double PRUNE_BELOW = 1.0 / 1024;
+    private static final Comparator<Entry> HOTTEST_FIRST = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::postId).reversed());
+
+    private record Entry(long postId, Long communityId, double score) {
+    }
+
+    public record Page(List<Long> postIds, String nextCursor, boolean hasNext) {
+    }
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final PostScoreRepository postScoreRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ResourceVersions resourceVersions;
+    private final long halfLifeSeconds;
+    private final double lambda;
+
+    // guarded by this
+    private final Map<Long, Entry> byPost = new HashMap<>();
+    private final Map<Long, NavigableSet<Entry>> rankings = new ConcurrentHashMap<>();
+    private volatile long epochSecond = Instant.now().getEpochSecond();
+
+    public HotFeed(PostRepository postRepository, CommentRepository commentRepository,
+            PostScoreRepository postScoreRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, ResourceVersions resourceVersions,
+            @Value("${app.hot.half-life-hours:12}") long halfLifeHours) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.postScoreRepository = postScoreRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.resourceVersions = resourceVersions;
+        this.halfLifeSeconds = halfLifeHours * 3600;
+        this.lambda = Math.log(2) / halfLifeSeconds;
+    }
+
+    public void recordPost(long postId, Long communityId, Instant createdAt) {
+        bump(postId, communityId, createdAt == null ? Instant.now() : createdAt);
+    }
+
+    /**
+     * @param communityId the post's community, or null to look it up
+     */
+    public void recordComment(long postId, Long communityId, Instant at) {
+        if (communityId == null && !isTracked(postId))
+            communityId = postRepository.findCommunityIdById(postId).orElse(null);
+        bump(postId, communityId, at == null ? Instant.now() : at);
+    }
+
+    /**
+     * Hottest post ids, overall or within a community. {@code cursor} is the
+     * {@code nextCursor} of the previous page, null for the first page.
+     * Throws IllegalArgumentException for a malformed cursor.
+     */
+    public Page page(Long communityId, String cursor, int limit) {
+        NavigableSet<Entry> ranking = rankings.get(communityId == null ? ALL : communityId);
+        if (ranking == null)
+            return new Page(List.of(), null, false);
+
+        Iterator<Entry> it = (cursor == null || cursor.isBlank()
+                ? ranking
+                : ranking.tailSet(decodeCursor(cursor), false)).iterator();
+        List<Long> ids = new ArrayList<>(limit);
+        Entry last = null;
+        while (it.hasNext() && ids.size() < limit) {
+            last = it.next();
+            ids.add(last.postId());
+        }
+        boolean hasNext = it.hasNext();
+        return new Page(ids, hasNext ? encodeCursor(last) : null, hasNext);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<PostScore> saved = postScoreRepository.findAll();
+        if (saved.isEmpty()) {
+            rebuildFromDatabase();
+            return;
+        }
+        Instant since = Instant.EPOCH;
+        synchronized (this) {
+            clear(Instant.now().getEpochSecond());
+            for (PostScore s : saved) {
+                double score = s.getScore() * Math.exp(lambda * (s.getScoredAt().getEpochSecond() - epochSecond));
+                put(new Entry(s.getPostId(), s.getCommunityId(), score));
+                if (s.getScoredAt().isAfter(since))
+                    since = s.getScoredAt();
+            }
+        }
+        replaySince(since);
+        log.info("Hot feed loaded: {} posts from snapshot, activity replayed since {}", saved.size(), since);
+    }
+
+    /**
+     * Recompute all scores from posts and comments of the last ten
+     * half-lives, e.g. after a bulk import with historical timestamps.
+     */
+    public void rebuildFromDatabase() {
+        synchronized (this) {
+            clear(Instant.now().getEpochSecond());
+        }
+        replaySince(Instant.now().minusSeconds(10 * halfLifeSeconds));
+        resourceVersions.bump(ResourceVersions.Resource.POSTS);
+        log.info("Hot feed rebuilt from the database: {} posts", size());
+    }
+
+    @Scheduled(initialDelayString = "${app.hot.snapshot-interval-ms:60000}",
+            fixedDelayString = "${app.hot.snapshot-interval-ms:60000}")
+    public void decayAndSnapshot() {
+        Instant now = Instant.now();
+        List<Entry> entries;
+        long epoch;
+        synchronized (this) {
+            if (now.getEpochSecond() - epochSecond > halfLifeSeconds) {
+                rebase(now.getEpochSecond());
+                // pruning can drop posts from the tail of cached pages
+                resourceVersions.bump(ResourceVersions.Resource.POSTS);
+            }
+            entries = new ArrayList<>(byPost.values());
+            epoch = epochSecond;
+        }
+
+        // store each score as of now so a snapshot does not depend on the epoch
+        double toNow = Math.exp(lambda * (epoch - now.getEpochSecond()));
+        Timestamp scoredAt = Timestamp.from(now);
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Entry e : entries)
+            rows.add(new Object[] { e.postId(), e.communityId(), e.score() * toNow, scoredAt });
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM post_scores");
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO post_scores (post_id, community_id, score, scored_at) VALUES (?, ?, ?, ?)", rows);
+        });
+    }
+
+    private void replaySince(Instant since) {
+        for (Object[] row : postRepository.findCreatedSince(since))
+            bump((Long) row[0], (Long) row[1], (Instant) row[2]);
+        for (Object[] row : commentRepository.findActivitySince(since))
+            bump((Long) row[0], (Long) row[1], (Instant) row[2]);
+    }
+
+    private synchronized void bump(long postId, Long communityId, Instant at) {
+        double weight = Math.exp(lambda * (at.getEpochSecond() - epochSecond));
+        Entry old = byPost.get(postId);
+        if (old != null) {
+            remove(old);
+            put(new Entry(postId, old.communityId() != null ? old.communityId() : communityId, old.score() + weight));
+        } else {
+            put(new Entry(postId, communityId, weight));
+        }
+    }
+
+    private synchronized boolean isTracked(long postId) {
+        return byPost.containsKey(postId);
+    }
+
+    private synchronized int size() {
+        return byPost.size();
+    }
+
+    // callers hold the lock
+    private void put(Entry e) {
+        byPost.put(e.postId(), e);
+        rankings.computeIfAbsent(ALL, k -> new ConcurrentSkipListSet<>(HOTTEST_FIRST)).add(e);
+        if (e.communityId() != null)
+            rankings.computeIfAbsent(e.communityId(), k -> new ConcurrentSkipListSet<>(HOTTEST_FIRST)).add(e);
+    }
+
+    private void remove(Entry e) {
+        byPost.remove(e.postId());
+        NavigableSet<Entry> all = rankings.get(ALL);
+        if (all != null)
+            all.remove(e);
+        if (e.communityId() != null) {
+            NavigableSet<Entry> community = rankings.get(e.communityId());
+            if (community != null)
+                community.remove(e);
+        }
+    }
+
+    private void clear(long newEpochSecond) {
+        byPost.clear();
+        rankings.clear();
+        epochSecond = newEpochSecond;
+    }
+
+    /**
+     * Rescale every score to a new epoch. Relative order is unchanged, so the
+     * rankings are rebuilt off to the side and swapped in one by one.
+     */
+    synchronized void rebase(long newEpochSecond) {
+        double factor = Math.exp(lambda * (epochSecond - newEpochSecond));
+        Map<Long, NavigableSet<Entry>> rebuilt = new HashMap<>();
+        List<Entry> rescaled = new ArrayList<>(byPost.size());
+        for (Entry e : byPost.values()) {
+            double score = e.score() * factor;
+            if (score < PRUNE_BELOW)
+                continue;
+            Entry r = new Entry(e.postId(), e.communityId(), score);
+            rescaled.add(r);
+            rebuilt.computeIfAbsent(ALL, k -> new ConcurrentSkipListSet<>(HOTTEST_FIRST)).add(r);
+            if (r.communityId() != null)
+                rebuilt.computeIfAbsent(r.communityId(), k -> new ConcurrentSkipListSet<>(HOTTEST_FIRST)).add(r);
+        }
+        byPost.clear();
+        for (Entry r : rescaled)
+            byPost.put(r.postId(), r);
+        rankings.keySet().retainAll(rebuilt.keySet());
+        rankings.putAll(rebuilt);
+        epochSecond = newEpochSecond;
+    }
+
+    // cursor: epoch:score:postId, so a cursor issued before a rebase still seeks correctly
+    private String encodeCursor(Entry last) {
+        String raw = epochSecond + ":" + last.score() + ":" + last.postId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Entry decodeCursor(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("invalid cursor");
+            long epoch = Long.parseLong(parts[0]);
+            double score = Double.parseDouble(parts[1]) * Math.exp(lambda * (epoch - epochSecond));
+            return new Entry(Long.parseLong(parts[2]), null, score);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo_springboot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Id blocks from the id_sequences table, shared with the Hibernate table
+ * generators on Post, Comment and User (see config/HibernateConfig for the
+ * row semantics).
+ *
+ * Before the web server starts, every sequence row is raised to at least
+ * MAX(id) + 1 of its table, so rows inserted while ids were still
+ * AUTO_INCREMENT can never be handed out again.
+ */
+@Component
+public class IdSequences implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequences.class);
+
+    public static final String POSTS = "posts";
+    public static final String COMMENTS = "comments";
+    public static final String USERS = "users";
+
+    // sequence name -> table whose ids it generates
+    private static final Map<String, String> TABLES = Map.of(POSTS, "posts", COMMENTS, "comments", USERS, "users");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Block> blocks = new HashMap<>();
+
+    public IdSequences(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_sequences "
+                + "(sequence_name VARCHAR(255) NOT NULL PRIMARY KEY, next_val BIGINT)");
+        TABLES.forEach((sequence, table) -> {
+            // table names come from the constant map above
+            String next = "(SELECT COALESCE(MAX(id), 0) + 1 FROM " + table + ")";
+            jdbcTemplate.update("INSERT IGNORE INTO id_sequences (sequence_name, next_val) VALUES (?, " + next + ")",
+                    sequence);
+            jdbcTemplate.update("UPDATE id_sequences SET next_val = GREATEST(next_val, " + next + ") "
+                    + "WHERE sequence_name = ?", sequence);
+        });
+        log.info("Id sequences ready: {}", TABLES.keySet());
+    }
+
+    /**
+     * Next id of {@code sequence}, reserving a new block of {@code blockSize}
+     * ids in its own transaction when the current one is used up.
+     */
+    public synchronized long next(String sequence, int blockSize) {
+        Block block = blocks.get(sequence);
+        if (block == null || block.next >= block.end) {
+            block = reserve(sequence, blockSize);
+            blocks.put(sequence, block);
+        }
+        return block.next++;
+    }
+
+    private Block reserve(String sequence, int blockSize) {
+        return newTransaction.execute(status -> {
+            Long start = jdbcTemplate.queryForObject(
+                    "SELECT next_val FROM id_sequences WHERE sequence_name = ? FOR UPDATE", Long.class, sequence);
+            jdbcTemplate.update("UPDATE id_sequences SET next_val = ? WHERE sequence_name = ?",
+                    start + blockSize, sequence);
+            return new Block(start, start + blockSize);
+        });
+    }
+
+    private static final class Block {
+        long next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.CommentView;
+import com.example.demo_springboot.DTO.PostView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans new posts and comments out to server-sent-event subscribers of
+ * /api/stream.
+ *
+ * Writers publish PostCreated / CommentCreated as application events; they
+ * arrive here after the surrounding transaction commits (or straight away
+ * outside one). Each event is serialized once and offered to the bounded
+ * buffer of every matching subscriber, so a publisher never waits on a
+ * socket. A subscriber whose buffer is full is disconnected rather than
+ * allowed to hold memory; clients reconnect and refetch.
+ *
+ * An idle subscriber is just an SseEmitter on an async servlet request, so
+ * it holds no thread. Buffers are drained by short-lived virtual threads,
+ * at most one per subscriber at a time, which keeps each stream in order.
+ * A heartbeat comment keeps proxies from closing idle connections and
+ * detects clients that went away.
+ */
+@Component
+public class LiveEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventHub.class);
+
+    public record PostCreated(PostView post) {
+    }
+
+    public record CommentCreated(CommentView comment, Long communityId) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public LiveEventHub(ObjectMapper objectMapper,
+            @Value("${app.stream.buffer-size:256}") int bufferSize,
+            @Value("${app.stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${app.stream.max-subscribers:50000}") int maxSubscribers) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * New stream of events, restricted to one community when
+     * {@code communityId} is not null. Throws IllegalStateException when the
+     * subscriber limit is reached.
+     */
+    public SseEmitter subscribe(Long communityId) {
+        if (subscribers.size() >= maxSubscribers)
+            throw new IllegalStateException("too many stream subscribers, retry later");
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, communityId, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        subscribers.add(subscriber);
+        // sent right away so the client sees the response start
+        subscriber.offer(SseEmitter.event().comment("connected").reconnectTime(3000).build());
+        return emitter;
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreated event) {
+        PostView post = event.post();
+        publish("post", post.community() == null ? null : post.community().id(), post);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreated event) {
+        publish("comment", event.communityId(), event.comment());
+    }
+
+    @Scheduled(initialDelayString = "${app.stream.heartbeat-ms:15000}",
+            fixedDelayString = "${app.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty())
+            return;
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Subscriber s : subscribers)
+            s.offer(ping);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Subscriber s : subscribers)
+            s.close();
+        senders.shutdown();
+    }
+
+    private void publish(String name, Long communityId, Object data) {
+        if (subscribers.isEmpty())
+            return;
+        // built once: the builder is not reusable and every subscriber gets the same bytes
+        Set<DataWithMediaType> event = SseEmitter.event()
+                .id(Long.toString(sequence.incrementAndGet()))
+                .name(name)
+                .data(objectMapper.writeValueAsString(data))
+                .build();
+        for (Subscriber s : subscribers) {
+            if (s.communityId == null || s.communityId.equals(communityId))
+                s.offer(event);
+        }
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Long communityId;
+        final BlockingQueue<Set<DataWithMediaType>> buffer;
+        // true while a sender thread owns this subscriber
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Long communityId, int bufferSize) {
+            this.emitter = emitter;
+            this.communityId = communityId;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (closed)
+                return;
+            if (!buffer.offer(event)) {
+                log.debug("Dropping slow stream subscriber ({} events buffered)", buffer.size());
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true))
+                senders.execute(this::drain);
+        }
+
+        private void drain() {
+            do {
+                Set<DataWithMediaType> next;
+                while (!closed && (next = buffer.poll()) != null) {
+                    try {
+                        emitter.send(next);
+                    } catch (IOException | IllegalStateException e) {
+                        // client gone or emitter already completed
+                        closed = true;
+                        subscribers.remove(this);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // an offer may have landed between the last poll and the reset
+            } while (!closed && !buffer.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void close() {
+            if (closed)
+                return;
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            // complete() waits for an in-flight send, so not on the publisher's thread
+            senders.execute(emitter::complete);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.SuggestionView;
+import com.example.demo_springboot.model.Community;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.repository.CommunityRepository;
+import com.example.demo_springboot.repository.HashtagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Typeahead indexes of community names (ranked by members) and hashtag
+ * names (ranked by posts). Loaded when the application is ready, kept in
+ * step by the write paths, and reloaded every app.suggest.reload-interval-ms
+ * to pick up anything written elsewhere, such as imports or another instance.
+ */
+@Component
+public class NameSuggestions {
+
+    private static final Logger log = LoggerFactory.getLogger(NameSuggestions.class);
+
+    private final CommunityRepository communityRepository;
+    private final HashtagRepository hashtagRepository;
+    private final TypeaheadIndex communities = new TypeaheadIndex();
+    private final TypeaheadIndex hashtags = new TypeaheadIndex();
+
+    public NameSuggestions(CommunityRepository communityRepository, HashtagRepository hashtagRepository) {
+        this.communityRepository = communityRepository;
+        this.hashtagRepository = hashtagRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.suggest.reload-interval-ms:600000}",
+            fixedDelayString = "${app.suggest.reload-interval-ms:600000}")
+    public void reload() {
+        communities.load(rows(communityRepository.findNamesWithMemberCounts()));
+        hashtags.load(rows(hashtagRepository.findNamesWithPostCounts()));
+        log.debug("Typeahead indexes loaded: {} communities, {} hashtags", communities.size(), hashtags.size());
+    }
+
+    public List<SuggestionView> suggestCommunities(String query, int limit) {
+        return communities.suggest(query, limit);
+    }
+
+    /**
+     * A leading @ or # in the query is ignored; tags are stored without it.
+     */
+    public List<SuggestionView> suggestHashtags(String query, int limit) {
+        String q = query == null ? "" : query.trim();
+        if (q.startsWith("@") || q.startsWith("#"))
+            q = q.substring(1);
+        return hashtags.suggest(q, limit);
+    }
+
+    public void communityCreated(Community community) {
+        communities.add(community.getId(), community.getName(), 0);
+    }
+
+    public void hashtagCreated(Hashtag hashtag) {
+        hashtags.add(hashtag.getId(), hashtag.getName(), 0);
+    }
+
+    public void membershipChanged(long communityId, boolean joined) {
+        communities.adjustCount(communityId, joined ? 1 : -1);
+    }
+
+    public void hashtagsUsed(Collection<Hashtag> used) {
+        for (Hashtag h : used)
+            hashtags.adjustCount(h.getId(), 1);
+    }
+
+    private static List<SuggestionView> rows(List<Object[]> rows) {
+        List<SuggestionView> out = new ArrayList<>(rows.size());
+        for (Object[] row : rows)
+            out.add(new SuggestionView(((Number) row[0]).longValue(), (String) row[1], ((Number) row[2]).longValue()));
+        return out;
+    }
+}
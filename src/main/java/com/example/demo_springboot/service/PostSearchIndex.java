@@ -0,0 +1,229 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.PostHashtagRow;
+import com.example.demo_springboot.DTO.PostRow;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * In-memory Lucene index over post title, body, hashtags and community.
+ * Rebuilt from the database at startup and updated on every createPost, so
+ * search is a ranked index lookup instead of a leading-wildcard ILIKE scan.
+ */
+@Component
+public class PostSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    // deepest result window we are willing to collect for one page
+    private static final int MAX_WINDOW = 1000;
+
+    private static final String F_ID = "id";
+    private static final String F_TITLE = "title";
+    private static final String F_BODY = "body";
+    private static final String F_HASHTAG = "hashtag";
+    private static final String F_COMMUNITY = "communityId";
+    private static final String F_CREATED = "createdAt";
+
+    private static final Sort NEWEST_FIRST = new Sort(new SortField(F_CREATED, SortField.Type.LONG, true));
+    private static final Sort RELEVANCE_THEN_NEWEST = new Sort(SortField.FIELD_SCORE,
+            new SortField(F_CREATED, SortField.Type.LONG, true));
+
+    private final PostRepository postRepository;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public PostSearchIndex(PostRepository postRepository) {
+        this.postRepository = postRepository;
+        try {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the posts table, walking it with the
+     * keyset feed queries so memory stays bounded by one batch.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            writer.deleteAll();
+            PageRequest batch = PageRequest.of(0, REBUILD_BATCH_SIZE);
+            List<PostRow> posts = postRepository.findFeedFirstPage(batch);
+            while (!posts.isEmpty()) {
+                Map<Long, List<String>> tagsByPost = loadHashtags(posts);
+                for (PostRow p : posts)
+                    writer.addDocument(toDocument(p.id(), p.title(), p.body(), p.communityId(), p.createdAt(),
+                            tagsByPost.getOrDefault(p.id(), List.of())));
+                count += posts.size();
+
+                PostRow last = posts.get(posts.size() - 1);
+                posts = postRepository.findFeedAfter(last.createdAt(), last.id(), batch);
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Indexed {} posts for search in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add or replace a single post. Visible to searches as soon as this returns.
+     */
+    public void index(Post post, Collection<Hashtag> hashtags) {
+        try {
+            List<String> tags = new ArrayList<>(hashtags.size());
+            for (Hashtag h : hashtags)
+                tags.add(h.getName());
+            Long communityId = post.getCommunity() == null ? null : post.getCommunity().getId();
+            writer.updateDocument(new Term(F_ID, String.valueOf(post.getId())), toDocument(post.getId(),
+                    post.getTitle(), post.getBody(), communityId, post.getCreatedAt(), tags));
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ranked post ids for one page of results. A blank query with filters
+     * lists the filtered posts newest first.
+     *
+     * @param hashtag     optional tag name (with or without a leading @ or #)
+     * @param communityId optional community filter
+     */
+    public List<Long> search(String q, String hashtag, Long communityId, int page, int size) {
+        int from = page * size;
+        if (from >= MAX_WINDOW)
+            return List.of();
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean hasText = q != null && !q.isBlank();
+        if (hasText)
+            query.add(parse(q), BooleanClause.Occur.MUST);
+        else
+            query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+
+        if (hashtag != null && !hashtag.isBlank())
+            query.add(new TermQuery(new Term(F_HASHTAG, normalizeTag(hashtag))), BooleanClause.Occur.FILTER);
+        if (communityId != null)
+            query.add(LongPoint.newExactQuery(F_COMMUNITY, communityId), BooleanClause.Occur.FILTER);
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = searcher.search(query.build(), Math.min(from + size, MAX_WINDOW),
+                    hasText ? RELEVANCE_THEN_NEWEST : NEWEST_FIRST);
+            List<Long> ids = new ArrayList<>();
+            for (int i = from; i < top.scoreDocs.length; i++) {
+                ScoreDoc sd = top.scoreDocs[i];
+                ids.add(Long.parseLong(searcher.storedFields().document(sd.doc).get(F_ID)));
+            }
+            return ids;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    private Query parse(String q) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[] { F_TITLE, F_BODY }, analyzer,
+                Map.of(F_TITLE, 2.0f, F_BODY, 1.0f));
+        try {
+            // user input is plain text, not Lucene query syntax
+            return parser.parse(QueryParser.escape(q.trim()));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("invalid search query");
+        }
+    }
+
+    private Map<Long, List<String>> loadHashtags(List<PostRow> posts) {
+        List<Long> ids = new ArrayList<>();
+        for (PostRow p : posts)
+            ids.add(p.id());
+        Map<Long, List<String>> tagsByPost = new HashMap<>();
+        for (PostHashtagRow row : postRepository.findHashtagsByPostIds(ids))
+            tagsByPost.computeIfAbsent(row.postId(), k -> new ArrayList<>()).add(row.hashtagName());
+        return tagsByPost;
+    }
+
+    private static Document toDocument(Long id, String title, String body, Long communityId, Instant createdAt,
+            Collection<String> hashtags) {
+        Document doc = new Document();
+        doc.add(new StringField(F_ID, String.valueOf(id), Field.Store.YES));
+        doc.add(new TextField(F_TITLE, Objects.toString(title, ""), Field.Store.NO));
+        doc.add(new TextField(F_BODY, Objects.toString(body, ""), Field.Store.NO));
+        for (String tag : hashtags)
+            doc.add(new StringField(F_HASHTAG, normalizeTag(tag), Field.Store.NO));
+        if (communityId != null)
+            doc.add(new LongPoint(F_COMMUNITY, communityId));
+        long created = createdAt == null ? 0L : createdAt.toEpochMilli();
+        doc.add(new NumericDocValuesField(F_CREATED, created));
+        return doc;
+    }
+
+    private static String normalizeTag(String tag) {
+        String t = tag.trim();
+        if (t.startsWith("@") || t.startsWith("#"))
+            t = t.substring(1);
+        return t.toLowerCase(Locale.ROOT);
+    }
+}
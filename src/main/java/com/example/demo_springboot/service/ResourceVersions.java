@@ -0,0 +1,64 @@
+package com.example.demo_springboot.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the ETags of the read endpoints. Every write that
+ * can change what a resource returns bumps its counter, so a conditional GET
+ * is answered from two longs without touching the database.
+ *
+ * Counters live in memory and start from zero, so the ETag also carries an
+ * id of this process: after a restart every client revalidates once. With
+ * several instances behind a load balancer writes on one would not bump the
+ * others, so this assumes the single instance the app runs as today.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource {
+        // post views, feeds and hot rankings: posts, comment counts, scores
+        POSTS,
+        COMMUNITIES,
+        FLAGS
+    }
+
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public ResourceVersions() {
+        for (Resource r : Resource.values())
+            versions.put(r, new AtomicLong());
+    }
+
+    /**
+     * Mark {@code resource} as changed. Inside a transaction the bump waits
+     * for the commit; bumping earlier would let a reader cache the old rows
+     * under the new ETag.
+     */
+    public void bump(Resource resource) {
+        AtomicLong version = versions.get(resource);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Strong ETag, quoted, for the current version of {@code resource}.
+     */
+    public String etag(Resource resource) {
+        return "\"" + resource.name().toLowerCase() + "-" + instanceId + "-" + versions.get(resource).get() + "\"";
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo_springboot.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Issues and verifies JWTs. Keys are decoded once at startup and the parser
+ * is built once, so neither login bursts nor request filtering pay for key
+ * derivation or parser construction.
+ *
+ * Key rotation: tokens are signed with the active key and carry its id in
+ * the {@code kid} header. Keys listed in {@code jwt.previous-keys} are still
+ * accepted for verification until the tokens they signed have expired.
+ */
+@Service
+public class TokenService {
+
+    private final String activeKeyId;
+    private final SecretKey activeKey;
+    private final Map<String, SecretKey> verificationKeys;
+    private final JwtParser parser;
+    private final long expirationMs;
+
+    /**
+     * @param secret       base64 HMAC secret used to sign new tokens
+     * @param activeKeyId  kid written into new tokens
+     * @param previousKeys comma-separated {@code kid:base64secret} pairs that
+     *                     are accepted for verification only
+     * @param expirationMs token lifetime
+     */
+    public TokenService(@Value("${jwt.secret}") String secret,
+            @Value("${jwt.key-id:primary}") String activeKeyId,
+            @Value("${jwt.previous-keys:}") String previousKeys,
+            @Value("${jwt.expiration-ms:36000000}") long expirationMs) {
+        this.activeKeyId = activeKeyId;
+        this.activeKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.expirationMs = expirationMs;
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String entry : previousKeys.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty())
+                continue;
+            int sep = trimmed.indexOf(':');
+            if (sep <= 0)
+                throw new IllegalArgumentException("jwt.previous-keys entries must look like kid:base64secret");
+            keys.put(trimmed.substring(0, sep), Keys.hmacShaKeyFor(Decoders.BASE64.decode(trimmed.substring(sep + 1))));
+        }
+        keys.put(activeKeyId, activeKey);
+        this.verificationKeys = Map.copyOf(keys);
+
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String kid = header.getKeyId();
+                        // tokens issued before key ids were introduced
+                        if (kid == null)
+                            return TokenService.this.activeKey;
+                        SecretKey key = verificationKeys.get(kid);
+                        if (key == null)
+                            throw new JwtException("Unknown signing key id: " + kid);
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public String issue(String subject, String role) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + expirationMs);
+        return Jwts.builder()
+                .header().keyId(activeKeyId).and()
+                .subject(subject)
+                .claim("role", role)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(activeKey)
+                .compact();
+    }
+
+    /**
+     * Verify the signature and expiry and return the claims.
+     * Throws JwtException (e.g. ExpiredJwtException) for any invalid token.
+     */
+    public Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
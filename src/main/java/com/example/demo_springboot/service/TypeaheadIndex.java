@@ -0,0 +1,262 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.SuggestionView;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory typeahead over a set of names (communities, hashtags), each with
+ * a popularity count.
+ *
+ * Names are kept lower-cased in an array sorted by name, so the names
+ * starting with the query form one contiguous range found by binary search.
+ * For queries of three or more characters, names that only contain the
+ * query come after the prefix matches, found through a trigram -> positions
+ * index whose posting lists are intersected and then verified. Within each
+ * group the highest counts win, ties broken by name.
+ *
+ * The sorted array and trigram lists are an immutable snapshot read without
+ * locks. Names added later sit in a short list that is scanned linearly
+ * until REBUILD_AFTER of them have piled up, then a new snapshot is built.
+ * Counts are mutable and read live, so count updates need no rebuild.
+ */
+public final class TypeaheadIndex {
+
+    private static final int REBUILD_AFTER = 256;
+
+    private static final class Entry {
+        final long id;
+        final String name;
+        final String key;
+        final AtomicLong count;
+
+        Entry(long id, String name, long count) {
+            this.id = id;
+            this.name = name;
+            this.key = normalize(name);
+            this.count = new AtomicLong(count);
+        }
+    }
+
+    private record Snapshot(Entry[] sorted, String[] keys, Map<String, int[]> trigrams) {
+    }
+
+    // count read once, so ranking is stable while a hit is being sorted
+    private record Hit(Entry entry, long count) {
+    }
+
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingLong(Hit::count).reversed()
+            .thenComparing(h -> h.entry().key);
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = build(List.of());
+    // added since the snapshot was built
+    private volatile List<Entry> recent = List.of();
+
+    /**
+     * Replace the contents with {@code rows} (id, name, count). Names added
+     * with a larger id than any row were created after the rows were read,
+     * so they are kept.
+     */
+    public synchronized void load(Collection<SuggestionView> rows) {
+        long maxId = Long.MIN_VALUE;
+        Map<Long, Entry> loaded = new HashMap<>();
+        for (SuggestionView row : rows) {
+            loaded.put(row.id(), new Entry(row.id(), row.name(), row.count()));
+            maxId = Math.max(maxId, row.id());
+        }
+        for (Entry e : byId.values()) {
+            if (e.id > maxId)
+                loaded.putIfAbsent(e.id, e);
+        }
+        byId.clear();
+        byId.putAll(loaded);
+        snapshot = build(byId.values());
+        recent = List.of();
+    }
+
+    /**
+     * Make a new name suggestible straight away. No-op for a known id.
+     */
+    public synchronized void add(long id, String name, long count) {
+        if (byId.containsKey(id))
+            return;
+        Entry e = new Entry(id, name, count);
+        byId.put(id, e);
+        if (recent.size() + 1 >= REBUILD_AFTER) {
+            snapshot = build(byId.values());
+            recent = List.of();
+        } else {
+            List<Entry> next = new ArrayList<>(recent);
+            next.add(e);
+            recent = List.copyOf(next);
+        }
+    }
+
+    public void adjustCount(long id, long delta) {
+        Entry e = byId.get(id);
+        if (e != null)
+            e.count.addAndGet(delta);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Up to {@code limit} names matching {@code query} case-insensitively:
+     * prefix matches first, then (for 3+ characters) names containing it.
+     */
+    public List<SuggestionView> suggest(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0)
+            return List.of();
+        Snapshot s = snapshot;
+        List<Entry> extra = recent;
+
+        TopK prefix = new TopK(limit);
+        int from = lowerBound(s.keys(), q);
+        int to = lowerBound(s.keys(), q + Character.MAX_VALUE);
+        for (int i = from; i < to; i++)
+            prefix.offer(s.sorted()[i]);
+        for (Entry e : extra) {
+            if (e.key.startsWith(q))
+                prefix.offer(e);
+        }
+        List<Hit> hits = prefix.best();
+
+        if (hits.size() < limit && q.length() >= 3) {
+            TopK infix = new TopK(limit - hits.size());
+            for (int i : candidates(s, q)) {
+                Entry e = s.sorted()[i];
+                if (!e.key.startsWith(q) && e.key.contains(q))
+                    infix.offer(e);
+            }
+            for (Entry e : extra) {
+                if (!e.key.startsWith(q) && e.key.contains(q))
+                    infix.offer(e);
+            }
+            hits.addAll(infix.best());
+        }
+
+        List<SuggestionView> out = new ArrayList<>(hits.size());
+        for (Hit h : hits)
+            out.add(new SuggestionView(h.entry().id, h.entry().name, h.count()));
+        return out;
+    }
+
+    static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Snapshot build(Collection<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, Comparator.comparing((Entry e) -> e.key).thenComparingLong(e -> e.id));
+        String[] keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++)
+            keys[i] = sorted[i].key;
+
+        // two passes: size every posting list, then fill them in ascending position order
+        Map<String, Integer> sizes = new HashMap<>();
+        for (String key : keys) {
+            for (String gram : trigrams(key))
+                sizes.merge(gram, 1, Integer::sum);
+        }
+        Map<String, int[]> postings = new HashMap<>(sizes.size() * 2);
+        Map<String, Integer> filled = new HashMap<>(sizes.size() * 2);
+        sizes.forEach((gram, n) -> postings.put(gram, new int[n]));
+        for (int i = 0; i < keys.length; i++) {
+            for (String gram : trigrams(keys[i])) {
+                int at = filled.merge(gram, 1, Integer::sum) - 1;
+                postings.get(gram)[at] = i;
+            }
+        }
+        return new Snapshot(sorted, keys, postings);
+    }
+
+    private static Set<String> trigrams(String key) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= key.length(); i++)
+            grams.add(key.substring(i, i + 3));
+        return grams;
+    }
+
+    /**
+     * Positions of names holding every trigram of {@code q}, by intersecting
+     * posting lists shortest first. A superset of the names containing q.
+     */
+    private static int[] candidates(Snapshot s, String q) {
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : trigrams(q)) {
+            int[] list = s.trigrams().get(gram);
+            if (list == null)
+                return new int[0];
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(l -> l.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++)
+            result = intersect(result, lists.get(i));
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int lowerBound(String[] keys, String q) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(q) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Keeps the k best hits seen, worst on top of the heap.
+     */
+    private static final class TopK {
+        private final int k;
+        private final PriorityQueue<Hit> heap;
+
+        TopK(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(k + 1, BEST_FIRST.reversed());
+        }
+
+        void offer(Entry e) {
+            Hit hit = new Hit(e, e.count.get());
+            if (heap.size() < k) {
+                heap.add(hit);
+            } else if (BEST_FIRST.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+
+        List<Hit> best() {
+            List<Hit> out = new ArrayList<>(heap);
+            out.sort(BEST_FIRST);
+            return out;
+        }
+    }
+}
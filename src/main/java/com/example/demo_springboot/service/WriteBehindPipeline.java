@@ -0,0 +1,663 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.CommentRow;
+import com.example.demo_springboot.DTO.CommentView;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.HashtagPostRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.UserRepository;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind mode for post and comment creation
+ * ({@code app.writes.async.enabled=true}).
+ *
+ * A request is validated, given an id from IdSequences, appended to a local
+ * journal file (fsync'ed) and queued, and the controller answers 202 with
+ * the id. A single worker drains the queue and inserts each batch with JDBC
+ * batch statements in one transaction, then indexes the new posts for search.
+ *
+ * The journal holds exactly the writes that are not in the database yet: it
+ * is truncated whenever the queue runs empty and compacted to the queue's
+ * contents when it grows past JOURNAL_COMPACT_BYTES. On startup anything
+ * left in it is queued again and flushed ahead of new writes; ids that
+ * already made it into the database are skipped, so replay is idempotent.
+ *
+ * Transient database failures (lost connections, lock timeouts, deadlocks)
+ * are retried with exponential backoff for as long as they last, so the
+ * writes stay queued and journaled and the queue filling up turns into 503s.
+ * A write that fails for any other reason is moved to the dead-letter file,
+ * which the pipeline only ever appends to.
+ */
+@Service
+public class WriteBehindPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindPipeline.class);
+
+    private static final long JOURNAL_COMPACT_BYTES = 8L * 1024 * 1024;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    // returned by flushRetrying when the shutdown timeout cut the retries short
+    private static final RuntimeException STOPPED = new IllegalStateException("write pipeline stopped");
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+    @JsonSubTypes({ @JsonSubTypes.Type(value = QueuedPost.class, name = "post"),
+            @JsonSubTypes.Type(value = QueuedComment.class, name = "comment") })
+    public sealed interface QueuedWrite permits QueuedPost, QueuedComment {
+        long id();
+    }
+
+    /**
+     * The original create payload; references are resolved when it is flushed.
+     */
+    public record QueuedPost(long id, Instant createdAt, Map<String, Object> payload) implements QueuedWrite {
+    }
+
+    public record QueuedComment(long id, Instant createdAt, long postId, Long parentId, Long authorId, String body)
+            implements QueuedWrite {
+    }
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int idBlockSize;
+    private final Path journalPath;
+    private final Path deadLetterPath;
+    private final long retryInitialMs;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<QueuedWrite> queue;
+
+    private final DashboardService dashboardService;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final HashtagPostRepository hashtagPostRepository;
+    private final UserRepository userRepository;
+    private final PostSearchIndex postSearchIndex;
+    private final IdSequences idSequences;
+    private final HotFeed hotFeed;
+    private final ResourceVersions resourceVersions;
+    private final LiveEventHub liveEventHub;
+    private final NameSuggestions nameSuggestions;
+    private final HashtagTrends hashtagTrends;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter journalWriter;
+
+    // accepted but not yet flushed, so comments on them validate;
+    // comments map to their depth so replies to them can be depth-checked
+    private final Set<Long> pendingPosts = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> pendingComments = new ConcurrentHashMap<>();
+
+    // writes read back from the journal at startup, flushed ahead of the
+    // queue; only touched by the worker once it is running
+    private final Deque<QueuedWrite> replayed = new ArrayDeque<>();
+
+    // guards the journal channel and queue insertion
+    private final Object journalLock = new Object();
+    private FileChannel journal;
+    private Thread worker;
+    private volatile boolean running;
+    // after this, a worker stuck retrying gives up and leaves its batch in the journal
+    private volatile long stopDeadline = Long.MAX_VALUE;
+
+    public WriteBehindPipeline(@Value("${app.writes.async.enabled:false}") boolean enabled,
+            @Value("${app.writes.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.writes.async.batch-size:200}") int batchSize,
+            @Value("${app.writes.async.id-block-size:100}") int idBlockSize,
+            @Value("${app.writes.async.journal:data/write-journal.ndjson}") String journalPath,
+            @Value("${app.writes.async.dead-letter:data/write-dead-letter.ndjson}") String deadLetterPath,
+            @Value("${app.writes.async.retry-initial-ms:200}") long retryInitialMs,
+            @Value("${app.writes.async.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+            DashboardService dashboardService, PostRepository postRepository, CommentRepository commentRepository,
+            HashtagPostRepository hashtagPostRepository, UserRepository userRepository, PostSearchIndex postSearchIndex, IdSequences idSequences,
+            HotFeed hotFeed, ResourceVersions resourceVersions, LiveEventHub liveEventHub,
+            NameSuggestions nameSuggestions, HashtagTrends hashtagTrends, ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.idBlockSize = idBlockSize;
+        this.journalPath = Path.of(journalPath);
+        this.deadLetterPath = Path.of(deadLetterPath);
+        this.retryInitialMs = retryInitialMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dashboardService = dashboardService;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.hashtagPostRepository = hashtagPostRepository;
+        this.userRepository = userRepository;
+        this.postSearchIndex = postSearchIndex;
+        this.idSequences = idSequences;
+        this.hotFeed = hotFeed;
+        this.resourceVersions = resourceVersions;
+        this.liveEventHub = liveEventHub;
+        this.nameSuggestions = nameSuggestions;
+        this.hashtagTrends = hashtagTrends;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.journalWriter = objectMapper.writerFor(QueuedWrite.class);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled)
+            return;
+        for (Path file : List.of(journalPath, deadLetterPath)) {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null)
+                Files.createDirectories(dir);
+        }
+        replayJournal();
+
+        synchronized (journalLock) {
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("write-behind").daemon().start(this::runWorker);
+        log.info("Write-behind pipeline started, journal {}", journalPath.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (worker == null)
+            return;
+        // the worker drains whatever is still queued before it exits, unless
+        // the database stays unreachable past the shutdown timeout
+        stopDeadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        running = false;
+        worker.join();
+        synchronized (journalLock) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Accept a post for asynchronous creation and return its id.
+     * Throws IllegalArgumentException when a hashtag, community or flag name
+     * is too long, IllegalStateException when the queue is full or not running.
+     */
+    public long submitPost(Map<String, Object> payload) {
+        dashboardService.checkReferenceNames(payload);
+        long id = idSequences.next(IdSequences.POSTS, idBlockSize);
+        append(new QueuedPost(id, Instant.now(), payload));
+        return id;
+    }
+
+    /**
+     * Validate and accept a comment for asynchronous creation and return its
+     * id. Same rules as DashboardService.createComment: the post must exist
+     * (or be queued), an unknown author or parent is ignored, and replies
+     * cannot nest deeper than CommentPaths.MAX_DEPTH.
+     */
+    public long submitComment(Map<String, Object> payload) {
+        Object postIdObj = payload.get("postId");
+        if (postIdObj == null)
+            throw new IllegalArgumentException("postId is required");
+        long postId;
+        try {
+            postId = Long.parseLong(String.valueOf(postIdObj));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("invalid postId");
+        }
+        if (!pendingPosts.contains(postId) && !postRepository.existsById(postId))
+            throw new IllegalArgumentException("post not found");
+
+        Long authorId = parseId(payload.get("authorId"));
+        if (authorId != null && !userRepository.existsById(authorId))
+            authorId = null;
+        Long parentId = parseId(payload.get("parentId"));
+        int depth = 0;
+        if (parentId != null) {
+            Integer parentDepth = pendingComments.get(parentId);
+            if (parentDepth == null)
+                parentDepth = storedDepths(List.of(parentId)).get(parentId);
+            if (parentDepth == null)
+                parentId = null;
+            else if (parentDepth >= CommentPaths.MAX_DEPTH)
+                throw new IllegalArgumentException("replies can be nested at most " + CommentPaths.MAX_DEPTH + " levels deep");
+            else
+                depth = parentDepth + 1;
+        }
+
+        long id = idSequences.next(IdSequences.COMMENTS, idBlockSize);
+        append(new QueuedComment(id, Instant.now(), postId, parentId, authorId,
+                String.valueOf(payload.getOrDefault("body", ""))), depth);
+        return id;
+    }
+
+    private void append(QueuedWrite write) {
+        append(write, 0);
+    }
+
+    private void append(QueuedWrite write, int depth) {
+        byte[] line = (journalWriter.writeValueAsString(write) + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (journalLock) {
+            if (journal == null)
+                throw new IllegalStateException("write pipeline is not running");
+            if (queue.remainingCapacity() == 0)
+                throw new IllegalStateException("write queue is full");
+            try {
+                journal.write(ByteBuffer.wrap(line));
+                journal.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (write instanceof QueuedPost)
+                pendingPosts.add(write.id());
+            else
+                pendingComments.put(write.id(), depth);
+            queue.add(write);
+        }
+    }
+
+    private void runWorker() {
+        List<QueuedWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !replayed.isEmpty()) {
+            try {
+                if (!replayed.isEmpty()) {
+                    while (batch.size() < batchSize && !replayed.isEmpty())
+                        batch.add(replayed.poll());
+                } else {
+                    QueuedWrite first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null)
+                        continue;
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                if (!flushOrSplit(batch)) {
+                    // the unflushed writes are still in the journal for the next start
+                    log.error("Write-behind pipeline stopped with {} writes unflushed; they stay in {}",
+                            batch.size() + replayed.size() + queue.size(), journalPath);
+                    return;
+                }
+                batch.clear();
+                maintainJournal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind worker error", e);
+            }
+        }
+    }
+
+    /**
+     * Flush the batch, retrying transient failures until they clear. On any
+     * other failure its writes are flushed one by one so a single bad write
+     * cannot hold up the rest; writes that still fail go to the dead-letter
+     * file. Returns false if the pipeline was stopped while retrying.
+     */
+    private boolean flushOrSplit(List<QueuedWrite> batch) throws InterruptedException {
+        RuntimeException failure = flushRetrying(batch);
+        if (failure == null)
+            return true;
+        if (failure == STOPPED)
+            return false;
+        log.warn("Batch of {} queued writes failed, retrying one by one", batch.size(), failure);
+        for (QueuedWrite write : batch) {
+            failure = flushRetrying(List.of(write));
+            if (failure == STOPPED)
+                return false;
+            if (failure != null)
+                deadLetter(write, failure);
+        }
+        return true;
+    }
+
+    /**
+     * Flush, backing off and retrying while the failure is transient.
+     * Returns null once flushed, otherwise the permanent failure or STOPPED.
+     */
+    private RuntimeException flushRetrying(List<QueuedWrite> batch) throws InterruptedException {
+        long delay = retryInitialMs;
+        for (int attempt = 1;; attempt++) {
+            try {
+                flush(batch);
+                return null;
+            } catch (RuntimeException e) {
+                if (!isTransient(e))
+                    return e;
+                if (stopTimedOut())
+                    return STOPPED;
+                log.warn("Flushing {} queued writes failed (attempt {}), retrying in {} ms: {}", batch.size(),
+                        attempt, delay, e.toString());
+            }
+            Thread.sleep(Math.max(0, Math.min(delay, stopDeadline - System.currentTimeMillis())));
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+        }
+    }
+
+    private boolean stopTimedOut() {
+        return System.currentTimeMillis() >= stopDeadline;
+    }
+
+    /**
+     * Failures worth waiting out: the database or a lock was unavailable,
+     * rather than the write itself being rejected.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException || t instanceof SQLRecoverableException)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Append a write the database rejected to the dead-letter file, in the
+     * journal's format so it can be fixed up and replayed by hand.
+     */
+    private void deadLetter(QueuedWrite write, RuntimeException failure) {
+        String line = journalWriter.writeValueAsString(write);
+        log.error("Moving queued write to {}: {}", deadLetterPath, line, failure);
+        try {
+            Files.writeString(deadLetterPath, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingPosts.remove(write.id());
+        pendingComments.remove(write.id());
+    }
+
+    private void flush(List<QueuedWrite> batch) {
+        List<QueuedPost> queuedPosts = new ArrayList<>();
+        List<QueuedComment> queuedComments = new ArrayList<>();
+        for (QueuedWrite write : batch) {
+            if (write instanceof QueuedPost p)
+                queuedPosts.add(p);
+            else if (write instanceof QueuedComment c)
+                queuedComments.add(c);
+        }
+
+        List<Post> inserted = transactionTemplate.execute(status -> {
+            List<Post> posts = insertPosts(queuedPosts);
+            insertComments(queuedComments);
+            return posts;
+        });
+
+        for (Post post : inserted) {
+            postSearchIndex.index(post, post.getHashtags());
+            nameSuggestions.hashtagsUsed(post.getHashtags());
+            hashtagTrends.record(post.getHashtags(), post.getCreatedAt());
+            hotFeed.recordPost(post.getId(), post.getCommunity() == null ? null : post.getCommunity().getId(),
+                    post.getCreatedAt());
+        }
+        for (QueuedComment c : queuedComments)
+            hotFeed.recordComment(c.postId(), null, c.createdAt());
+        resourceVersions.bump(ResourceVersions.Resource.POSTS);
+        if (liveEventHub.hasSubscribers())
+            publishLiveEvents(inserted, queuedComments);
+        for (QueuedPost p : queuedPosts)
+            pendingPosts.remove(p.id());
+        for (QueuedComment c : queuedComments)
+            pendingComments.remove(c.id());
+    }
+
+    /**
+     * Stream events for a flushed batch. Queued comments only carry ids, so
+     * authors and communities are read back with two queries.
+     */
+    private void publishLiveEvents(List<Post> posts, List<QueuedComment> comments) {
+        for (Post post : posts)
+            eventPublisher.publishEvent(new LiveEventHub.PostCreated(
+                    dashboardService.postView(post, post.getHashtags(), 0)));
+        if (comments.isEmpty())
+            return;
+        Set<Long> postIds = new HashSet<>();
+        for (QueuedComment c : comments)
+            postIds.add(c.postId());
+        Map<Long, Long> communityByPost = new HashMap<>();
+        for (Object[] row : postRepository.findCommunityIdsByIds(postIds))
+            communityByPost.put((Long) row[0], (Long) row[1]);
+        for (CommentRow row : commentRepository.findRowsByIds(ids(comments)))
+            eventPublisher.publishEvent(new LiveEventHub.CommentCreated(CommentView.from(row, 0),
+                    communityByPost.get(row.postId())));
+    }
+
+    private List<Post> insertPosts(List<QueuedPost> queued) {
+        List<Post> posts = new ArrayList<>();
+        if (queued.isEmpty())
+            return posts;
+        Set<Long> existing = new HashSet<>(postRepository.findExistingIds(ids(queued)));
+
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> tagRows = new ArrayList<>();
+        List<Long> taggedIds = new ArrayList<>();
+        for (QueuedPost q : queued) {
+            if (existing.contains(q.id()))
+                continue;
+            Post post = dashboardService.buildPost(q.payload());
+            post.setId(q.id());
+            post.setCreatedAt(q.createdAt());
+            posts.add(post);
+            rows.add(new Object[] { post.getId(), post.getTitle(), post.getBody(), Timestamp.from(post.getCreatedAt()),
+                    post.getAuthor() == null ? null : post.getAuthor().getId(),
+                    post.getCommunity() == null ? null : post.getCommunity().getId(),
+                    post.getFlag() == null ? null : post.getFlag().getId() });
+            for (Hashtag h : post.getHashtags())
+                tagRows.add(new Object[] { post.getId(), h.getId() });
+            if (!post.getHashtags().isEmpty())
+                taggedIds.add(post.getId());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (id, title, body, created_at, top_level_comment_count, "
+                + "author_id, community_id, flag_id) VALUES (?, ?, ?, ?, 0, ?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO posts_hashtags (post_id, hashtag_id) VALUES (?, ?)", tagRows);
+        if (!taggedIds.isEmpty())
+            hashtagPostRepository.insertForPosts(taggedIds);
+        return posts;
+    }
+
+    private void insertComments(List<QueuedComment> queued) {
+        if (queued.isEmpty())
+            return;
+        Set<Long> existing = new HashSet<>(commentRepository.findExistingIds(ids(queued)));
+
+        // paths of parents that are already in the database
+        Set<Long> batchIds = new HashSet<>(ids(queued));
+        Set<Long> outsideParents = new HashSet<>();
+        for (QueuedComment c : queued) {
+            if (c.parentId() != null && !batchIds.contains(c.parentId()))
+                outsideParents.add(c.parentId());
+        }
+        Map<Long, String> paths = new HashMap<>();
+        Map<Long, Integer> depths = new HashMap<>();
+        if (!outsideParents.isEmpty()) {
+            for (Object[] row : commentRepository.findPathsByIds(outsideParents)) {
+                if (row[1] != null) {
+                    paths.put((Long) row[0], (String) row[1]);
+                    depths.put((Long) row[0], (Integer) row[2]);
+                }
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        Map<Long, Integer> topLevelByPost = new HashMap<>();
+        Map<Long, Integer> repliesByParent = new HashMap<>();
+        for (QueuedComment c : queued) {
+            // parents come before their replies in the queue, so an in-batch
+            // parent's path is already known here. A parent without a path
+            // leaves the reply for CommentPathBackfill.
+            String path = null;
+            int depth = 0;
+            if (c.parentId() == null) {
+                path = CommentPaths.childPath(null, c.id());
+            } else if (paths.containsKey(c.parentId())) {
+                path = CommentPaths.childPath(paths.get(c.parentId()), c.id());
+                depth = depths.get(c.parentId()) + 1;
+            }
+            if (path != null) {
+                paths.put(c.id(), path);
+                depths.put(c.id(), depth);
+            }
+
+            if (existing.contains(c.id()))
+                continue;
+            rows.add(new Object[] { c.id(), c.body(), Timestamp.from(c.createdAt()), path, depth, c.postId(),
+                    c.authorId(), c.parentId() });
+            if (c.parentId() == null)
+                topLevelByPost.merge(c.postId(), 1, Integer::sum);
+            else
+                repliesByParent.merge(c.parentId(), 1, Integer::sum);
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO comments (id, body, created_at, reply_count, path, depth, post_id, "
+                + "author_id, parent_comment_id) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("UPDATE posts SET top_level_comment_count = top_level_comment_count + ? WHERE id = ?",
+                counterRows(topLevelByPost));
+        jdbcTemplate.batchUpdate("UPDATE comments SET reply_count = reply_count + ? WHERE id = ?",
+                counterRows(repliesByParent));
+    }
+
+    /**
+     * Empty the journal when everything in it has been flushed, or rewrite
+     * it with just the unflushed writes once it has grown too large.
+     */
+    private void maintainJournal() {
+        synchronized (journalLock) {
+            try {
+                if (queue.isEmpty() && replayed.isEmpty()) {
+                    journal.truncate(0);
+                    journal.force(true);
+                } else if (journal.size() > JOURNAL_COMPACT_BYTES) {
+                    Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+                    try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        for (QueuedWrite write : replayed) {
+                            String line = journalWriter.writeValueAsString(write) + "\n";
+                            out.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+                        }
+                        for (QueuedWrite write : queue) {
+                            String line = journalWriter.writeValueAsString(write) + "\n";
+                            out.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+                        }
+                        out.force(true);
+                    }
+                    journal.close();
+                    Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Queue whatever a previous run left in the journal ahead of new writes.
+     * The lines stay in the journal until the worker has flushed them.
+     */
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalPath))
+            return;
+        List<QueuedWrite> writes = new ArrayList<>();
+        for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank())
+                continue;
+            try {
+                writes.add(objectMapper.readValue(line, QueuedWrite.class));
+            } catch (RuntimeException e) {
+                // a torn last line from a crash mid-append was never acknowledged
+                log.warn("Skipping unreadable journal line: {}", line);
+            }
+        }
+        // depths of replayed replies, for comments submitted on top of them
+        List<Long> outsideParents = new ArrayList<>();
+        for (QueuedWrite write : writes) {
+            if (write instanceof QueuedComment c && c.parentId() != null)
+                outsideParents.add(c.parentId());
+        }
+        Map<Long, Integer> depths = outsideParents.isEmpty() ? new HashMap<>() : storedDepths(outsideParents);
+        for (QueuedWrite write : writes) {
+            if (write instanceof QueuedComment c) {
+                int depth = c.parentId() == null ? 0 : depths.getOrDefault(c.parentId(), -1) + 1;
+                depths.put(c.id(), depth);
+                pendingComments.put(c.id(), depth);
+            } else {
+                pendingPosts.add(write.id());
+            }
+        }
+        replayed.addAll(writes);
+        if (!writes.isEmpty())
+            log.info("Replaying {} queued writes from {}", writes.size(), journalPath);
+    }
+
+    // depth of each comment that is in the database
+    private Map<Long, Integer> storedDepths(Collection<Long> ids) {
+        Map<Long, Integer> depths = new HashMap<>();
+        for (Object[] row : commentRepository.findPathsByIds(ids))
+            depths.put((Long) row[0], row[2] == null ? 0 : (Integer) row[2]);
+        return depths;
+    }
+
+    private static List<Long> ids(List<? extends QueuedWrite> writes) {
+        List<Long> ids = new ArrayList<>(writes.size());
+        for (QueuedWrite w : writes)
+            ids.add(w.id());
+        return ids;
+    }
+
+    private static List<Object[]> counterRows(Map<Long, Integer> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> rows.add(new Object[] { delta, id }));
+        return rows;
+    }
+
+    private static Long parseId(Object value) {
+        if (value == null)
+            return null;
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
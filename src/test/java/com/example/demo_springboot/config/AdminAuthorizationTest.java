@@ -0,0 +1,76 @@
+package com.example.demo_springboot.config;
+
+import com.example.demo_springboot.repository.UserRepository;
+import com.example.demo_springboot.service.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /api/admin/** is guarded by the "admin" role claim. admin.role is the
+ * user name of the admin account, so it is set to something else here to
+ * make sure the two are not mixed up.
+ */
+@SpringBootTest(properties = "admin.role=root")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminAuthorizationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    // nothing is mapped here, so a request that gets past security is a 404
+    private ResultActions adminRequest(String token) throws Exception {
+        return mockMvc.perform(get("/api/admin/unmapped").header("Authorization", "Bearer " + token));
+    }
+
+    @Test
+    void adminRoleClaimIsAllowed() throws Exception {
+        adminRequest(tokenService.issue("1", "admin")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void otherRolesAreForbidden() throws Exception {
+        adminRequest(tokenService.issue("2", "user")).andExpect(status().isForbidden());
+        // the admin account's user name is not a role
+        adminRequest(tokenService.issue("3", "root")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void registeringTheAdminAccountGrantsAccess() throws Exception {
+        String body = objectMapper.writeValueAsString(
+                Map.of("name", "root", "email", "root@example.com", "password", "admin"));
+        String response = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(response).get("token").asString();
+
+        adminRequest(token).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo_springboot.config;
+
+import com.example.demo_springboot.model.Community;
+import com.example.demo_springboot.repository.CommunityRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheConfigTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private CommunityRepository communityRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long communityId;
+
+    @BeforeEach
+    void seed() {
+        communityId = communityRepository.save(new Community(null, "cached")).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        communityRepository.deleteById(communityId);
+        cacheManager.getCache(CacheConfig.COMMUNITIES).clear();
+    }
+
+    @Test
+    void evictionsInsideATransactionWaitForTheCommit() {
+        communityRepository.findAll();
+        Cache communities = cacheManager.getCache(CacheConfig.COMMUNITIES);
+        assertThat(communities.get(SimpleKey.EMPTY)).isNotNull();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            communityRepository.adjustMemberCount(communityId, 1);
+            // a reader in this window still gets the cached list, and
+            // anything it caches now is dropped by the commit
+            assertThat(communities.get(SimpleKey.EMPTY)).isNotNull();
+        });
+
+        assertThat(communities.get(SimpleKey.EMPTY)).isNull();
+        assertThat(communityRepository.findAll())
+                .filteredOn(c -> c.getId().equals(communityId))
+                .extracting(Community::getMemberCount)
+                .containsExactly(1);
+    }
+
+    @Test
+    void evictionsOfARolledBackTransactionAreDropped() {
+        communityRepository.findAll();
+        Cache communities = cacheManager.getCache(CacheConfig.COMMUNITIES);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            communityRepository.adjustMemberCount(communityId, 1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(communities.get(SimpleKey.EMPTY)).isNotNull();
+    }
+}
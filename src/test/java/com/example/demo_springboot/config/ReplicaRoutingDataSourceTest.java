@@ -0,0 +1,116 @@
+package com.example.demo_springboot.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing against two separate H2 databases standing in for the primary and
+ * the replica; each one answers "which database am I" from its own table.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        DataSource routed = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primary.getDataSource(), replica.getDataSource(), Duration.ofMinutes(1)));
+        jdbc = new JdbcTemplate(routed);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routed);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+        primary.execute("DROP ALL OBJECTS");
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcTemplate db = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        db.execute("CREATE TABLE whoami (name VARCHAR(16))");
+        db.update("INSERT INTO whoami VALUES (?)", name);
+        return db;
+    }
+
+    private String whoami() {
+        return jdbc.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private static void signIn(String user) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                user, null, List.of(new SimpleGrantedAuthority("user"))));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(readOnly.execute(status -> whoami())).isEqualTo("replica");
+        assertThat(readWrite.execute(status -> whoami())).isEqualTo("primary");
+        // no transaction: nothing says it is safe to read stale data
+        assertThat(whoami()).isEqualTo("primary");
+    }
+
+    @Test
+    void writerReadsFromThePrimaryAfterCommitting() {
+        signIn("42");
+        assertThat(readOnly.execute(status -> whoami())).isEqualTo("replica");
+
+        readWrite.executeWithoutResult(status -> jdbc.update("INSERT INTO whoami VALUES ('written')"));
+        assertThat(readOnly.execute(status -> jdbc.queryForObject(
+                "SELECT COUNT(*) FROM whoami WHERE name = 'written'", Integer.class))).isEqualTo(1);
+
+        // other users are not held on the primary
+        signIn("7");
+        assertThat(readOnly.execute(status -> whoami())).isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackWriteDoesNotStick() {
+        signIn("42");
+        readWrite.executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO whoami VALUES ('written')");
+            status.setRollbackOnly();
+        });
+        assertThat(readOnly.execute(status -> whoami())).isEqualTo("replica");
+    }
+
+    @Test
+    void requestsServingAnETagReadFromThePrimary() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        assertThat(readOnly.execute(status -> whoami())).isEqualTo("replica");
+
+        // as set by DashboardController.notModified, for anonymous readers too
+        request.setAttribute(ReplicaRoutingDataSource.PRIMARY_READS, Boolean.TRUE);
+        assertThat(readOnly.execute(status -> whoami())).isEqualTo("primary");
+    }
+}
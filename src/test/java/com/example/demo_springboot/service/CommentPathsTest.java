@@ -0,0 +1,49 @@
+package com.example.demo_springboot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentPathsTest {
+
+    @Test
+    void childPathAppendsZeroPaddedSegment() {
+        assertThat(CommentPaths.childPath(null, 12)).isEqualTo("000000000012/");
+        assertThat(CommentPaths.childPath("000000000012/", 34)).isEqualTo("000000000012/000000000034/");
+    }
+
+    @Test
+    void stringOrderIsTreeOrder() {
+        String parent = CommentPaths.childPath(null, 9);
+        String child = CommentPaths.childPath(parent, 100);
+        String grandChild = CommentPaths.childPath(child, 101);
+        String laterChild = CommentPaths.childPath(parent, 200);
+        String nextSibling = CommentPaths.childPath(null, 10);
+
+        assertThat(parent).isLessThan(child);
+        assertThat(child).isLessThan(grandChild);
+        assertThat(grandChild).isLessThan(laterChild);
+        assertThat(laterChild).isLessThan(nextSibling);
+    }
+
+    @Test
+    void upperBoundCoversDescendantsOnly() {
+        String root = CommentPaths.childPath(null, 12);
+        String upper = CommentPaths.upperBound(root);
+
+        assertThat(root).isLessThan(upper);
+        assertThat(CommentPaths.childPath(root, 999_999_999_999L)).isLessThan(upper);
+        assertThat(CommentPaths.childPath(CommentPaths.childPath(root, 5), 7)).isLessThan(upper);
+        // the next sibling and anything under it sorts past the bound
+        assertThat(CommentPaths.childPath(null, 13)).isGreaterThanOrEqualTo(upper);
+    }
+
+    @Test
+    void maxDepthPathFitsTheColumn() {
+        String path = null;
+        for (int depth = 0; depth <= CommentPaths.MAX_DEPTH; depth++)
+            path = CommentPaths.childPath(path, 999_999_999_999L);
+        assertThat(path.length()).isLessThanOrEqualTo(CommentPaths.MAX_PATH_LENGTH);
+        assertThat(CommentPaths.childPath(path, 1).length()).isGreaterThan(CommentPaths.MAX_PATH_LENGTH);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.CommentThreadNode;
+import com.example.demo_springboot.DTO.CommentView;
+import com.example.demo_springboot.DTO.SubtreeEntry;
+import com.example.demo_springboot.model.Comment;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Subtree reads over Comment.path: the range query must return exactly the
+ * descendants of a comment, in render order, and nothing from its siblings.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CommentSubtreeTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CommentPathBackfill commentPathBackfill;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long postId;
+
+    @BeforeEach
+    void seed() {
+        Post post = new Post();
+        post.setTitle("thread");
+        post.setBody("body");
+        postId = postRepository.save(post).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+    }
+
+    private CommentView comment(String body, Long parentId) {
+        return parentId == null
+                ? dashboardService.createComment(Map.of("postId", postId, "body", body))
+                : dashboardService.createComment(Map.of("postId", postId, "body", body, "parentId", parentId));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void subtreeIsTheCommentAndItsDescendantsInRenderOrder() {
+        CommentView a = comment("a", null);
+        CommentView a1 = comment("a1", a.id());
+        CommentView b = comment("b", null);
+        CommentView a1x = comment("a1x", a1.id());
+        CommentView a2 = comment("a2", a.id());
+        comment("b1", b.id());
+
+        Map<String, Object> subtree = dashboardService.getCommentSubtree(a.id());
+        List<SubtreeEntry> entries = (List<SubtreeEntry>) subtree.get("comments");
+
+        assertThat(entries).extracting(e -> e.comment().id()).containsExactly(a.id(), a1.id(), a1x.id(), a2.id());
+        assertThat(entries).extracting(SubtreeEntry::depth).containsExactly(0, 1, 2, 1);
+        assertThat(subtree.get("descendantCount")).isEqualTo(3);
+        assertThat(dashboardService.countCommentDescendants(a.id())).isEqualTo(3L);
+        assertThat(dashboardService.countCommentDescendants(a1x.id())).isZero();
+    }
+
+    @Test
+    void repliesBeyondMaxDepthAreRejected() {
+        CommentView deepest = comment("top", null);
+        for (int depth = 1; depth <= CommentPaths.MAX_DEPTH; depth++)
+            deepest = comment("reply " + depth, deepest.id());
+
+        Long parentId = deepest.id();
+        assertThatThrownBy(() -> comment("too deep", parentId))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(dashboardService.countCommentDescendants(parentId)).isZero();
+    }
+
+    // a comment without a path, as written before Comment.path existed
+    private void legacyComment(long id, Long parentId) {
+        jdbcTemplate.update("INSERT INTO comments (id, body, created_at, reply_count, path, depth, post_id, "
+                + "parent_comment_id) VALUES (?, 'legacy', ?, 0, NULL, 0, ?, ?)",
+                id, Timestamp.from(Instant.now()), postId, parentId);
+    }
+
+    @Test
+    void backfillResolvesRepliesWithSmallerIdsThanTheirParents() {
+        // pooled id blocks: each reply got an id below its parent's
+        legacyComment(900_003, null);
+        legacyComment(900_002, 900_003L);
+        legacyComment(900_001, 900_002L);
+
+        commentPathBackfill.backfill();
+
+        Comment leaf = commentRepository.findById(900_001L).orElseThrow();
+        assertThat(leaf.getDepth()).isEqualTo(2);
+        assertThat(leaf.getPath()).isEqualTo(CommentPaths.childPath(
+                CommentPaths.childPath(CommentPaths.childPath(null, 900_003), 900_002), 900_001));
+        assertThat(dashboardService.countCommentDescendants(900_003L)).isEqualTo(2L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void threadListsCommentsByCreationTimeNotId() {
+        CommentView later = comment("later", null);
+        CommentView earlier = comment("earlier", null);
+        jdbcTemplate.update("UPDATE comments SET created_at = ? WHERE id = ?",
+                Timestamp.from(Instant.now().minusSeconds(60)), earlier.id());
+
+        List<CommentThreadNode> thread =
+                (List<CommentThreadNode>) dashboardService.getPostThread(postId, 5, 50).get("comments");
+
+        assertThat(thread).extracting(n -> n.comment().id()).containsExactly(earlier.id(), later.id());
+    }
+}
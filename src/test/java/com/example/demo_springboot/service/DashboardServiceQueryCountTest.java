@@ -0,0 +1,129 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.CommentView;
+import com.example.demo_springboot.DTO.FeedPage;
+import com.example.demo_springboot.DTO.PostView;
+import com.example.demo_springboot.model.Community;
+import com.example.demo_springboot.model.Flag;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.model.User;
+import com.example.demo_springboot.repository.CommunityRepository;
+import com.example.demo_springboot.repository.FlagRepository;
+import com.example.demo_springboot.repository.HashtagRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the feed read path against N+1 regressions: mapping a page must take
+ * the same number of statements no matter how many posts are on it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DashboardServiceQueryCountTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private HashtagRepository hashtagRepository;
+    @Autowired
+    private CommunityRepository communityRepository;
+    @Autowired
+    private FlagRepository flagRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        User author = userRepository.save(new User(null, "alice", "alice@example.com", "pw", "user"));
+        Flag flag = flagRepository.save(new Flag(null, "question"));
+        List<Hashtag> tags = hashtagRepository.saveAll(List.of(
+                new Hashtag(null, "java"), new Hashtag(null, "spring"), new Hashtag(null, "jpa")));
+
+        for (int i = 0; i < 20; i++) {
+            Community community = communityRepository.save(new Community(null, "community-" + i));
+            Post post = new Post();
+            post.setTitle("post " + i);
+            post.setBody("body " + i);
+            post.setAuthor(author);
+            post.setCommunity(community);
+            post.setFlag(flag);
+            post.getHashtags().addAll(tags);
+            post = postRepository.save(post);
+
+            CommentView top = dashboardService.createComment(
+                    Map.of("postId", post.getId(), "authorId", author.getId(), "body", "top"));
+            dashboardService.createComment(
+                    Map.of("postId", post.getId(), "authorId", author.getId(), "body", "reply", "parentId", top.id()));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+        hashtagRepository.deleteAll();
+        communityRepository.deleteAll();
+        flagRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void feedPageUsesConstantNumberOfStatements() {
+        Statistics stats = statistics();
+
+        stats.clear();
+        FeedPage small = dashboardService.getFeedPage(null, null, 5);
+        long smallPageStatements = stats.getPrepareStatementCount();
+
+        stats.clear();
+        FeedPage large = dashboardService.getFeedPage(null, null, 20);
+        long largePageStatements = stats.getPrepareStatementCount();
+
+        assertThat(small.content()).hasSize(5);
+        List<PostView> content = large.content();
+        assertThat(content).hasSize(20);
+        assertThat(content.get(0).commentCount()).isEqualTo(1);
+        assertThat(content.get(0).hashtags()).hasSize(3);
+
+        // posts page + hashtags batch
+        assertThat(largePageStatements).isLessThanOrEqualTo(2);
+        assertThat(largePageStatements).isEqualTo(smallPageStatements);
+    }
+
+    @Test
+    void topLevelCommentsUseConstantNumberOfStatements() {
+        Long postId = postRepository.findFeedFirstPage(PageRequest.of(0, 1)).get(0).id();
+        Statistics stats = statistics();
+
+        stats.clear();
+        List<CommentView> comments = dashboardService.getPostComments(postId);
+
+        assertThat(comments).hasSize(1);
+        assertThat(comments.get(0).replyCount()).isEqualTo(1);
+        // existence check + comments with authors
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
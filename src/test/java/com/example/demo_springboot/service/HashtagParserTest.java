@@ -0,0 +1,60 @@
+package com.example.demo_springboot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashtagParserTest {
+
+    // the pattern the hand-written scanner replaced
+    private static final Pattern TAG = Pattern.compile("@([A-Za-z0-9_-]+)");
+
+    // weighted toward '@' and tag characters, plus separators and non-ASCII letters
+    private static final String ALPHABET = "@@@@aZz09_-- \n\t.,#@é€ß";
+
+    private static Map<String, String> parseWithRegex(String text) {
+        Map<String, String> names = new LinkedHashMap<>();
+        Matcher m = TAG.matcher(text);
+        while (m.find())
+            names.putIfAbsent(m.group(1).toLowerCase(Locale.ROOT), m.group(1));
+        return names;
+    }
+
+    @Test
+    void findsTagsAnywhereInOrderOfAppearance() {
+        Map<String, String> tags = HashtagParser.parse("@Java and @spring-boot, mail me@host.com @ @@jpa @JAVA");
+
+        assertThat(new ArrayList<>(tags.entrySet())).containsExactly(Map.entry("java", "Java"),
+                Map.entry("spring-boot", "spring-boot"), Map.entry("host", "host"), Map.entry("jpa", "jpa"));
+    }
+
+    @Test
+    void nullAndTaglessTextGiveNoTags() {
+        assertThat(HashtagParser.parse(null)).isEmpty();
+        assertThat(HashtagParser.parse("no tags @ here @")).isEmpty();
+    }
+
+    @Test
+    void matchesTheRegexOnRandomText() {
+        Random random = new Random(42);
+        for (int round = 0; round < 10_000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++)
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+
+            String input = text.toString();
+            assertThat(new ArrayList<>(HashtagParser.parse(input).entrySet()))
+                    .as("tags in \"%s\"", input)
+                    .containsExactlyElementsOf(parseWithRegex(input).entrySet());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.FeedPage;
+import com.example.demo_springboot.DTO.PostView;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.repository.HashtagPostRepository;
+import com.example.demo_springboot.repository.HashtagRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hashtag pages follow createdAt, not id order: posts imported with
+ * historical timestamps or flushed by the write-behind pipeline get ids
+ * out of creation order.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HashtagPostsTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private HashtagRepository hashtagRepository;
+    @Autowired
+    private HashtagPostRepository hashtagPostRepository;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    @Autowired
+    private HotFeed hotFeed;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Hashtag java;
+    private Instant now;
+
+    @BeforeEach
+    void seed() {
+        java = hashtagRepository.save(new Hashtag(null, "java"));
+        now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        hashtagPostRepository.deleteAll();
+        postRepository.deleteAll();
+        hashtagRepository.deleteAll();
+    }
+
+    private Long post(Duration age) {
+        Post post = new Post();
+        post.setTitle("post");
+        post.setBody("body");
+        post.setCreatedAt(now.minus(age));
+        post.getHashtags().add(java);
+        return postRepository.save(post).getId();
+    }
+
+    private List<Long> allPages(String name, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            FeedPage page = dashboardService.getHashtagPosts(name, cursor, pageSize);
+            page.content().forEach(p -> ids.add(p.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    void pagesAreNewestFirstByCreatedAtWithIdBreakingTies() {
+        Long hourOld = post(Duration.ofHours(1));
+        Long threeHoursOld = post(Duration.ofHours(3));
+        Long twoHoursOld = post(Duration.ofHours(2));
+        Long newest = post(Duration.ZERO);
+        Long newestLater = post(Duration.ZERO);
+        // saved through the repository, so copied the way old rows are
+        hashtagPostRepository.insertMissing();
+
+        assertThat(allPages("#Java", 2)).containsExactly(newestLater, newest, hourOld, twoHoursOld, threeHoursOld);
+    }
+
+    @Test
+    void createdPostsAreOnTheFirstPage() {
+        post(Duration.ofHours(1));
+        hashtagPostRepository.insertMissing();
+
+        PostView created = dashboardService.createPost(Map.of("title", "new", "body", "body", "hashtags", "@java"));
+
+        FeedPage first = dashboardService.getHashtagPosts("java", null, 1);
+        assertThat(first.content()).extracting(PostView::id).containsExactly(created.id());
+        assertThat(first.hasNext()).isTrue();
+        assertThat(hashtagPostRepository.insertMissing()).isZero();
+    }
+
+    @Test
+    void aRolledBackPostIsNeitherPagedNorIndexed() {
+        Long id = new TransactionTemplate(transactionManager).execute(status -> {
+            PostView created = dashboardService.createPost(
+                    Map.of("title", "rolledback", "body", "body", "hashtags", "@java"));
+            status.setRollbackOnly();
+            return created.id();
+        });
+
+        assertThat(postRepository.existsById(id)).isFalse();
+        assertThat(hashtagPostRepository.count()).isZero();
+        assertThat(postSearchIndex.search("rolledback", null, null, 0, 10)).isEmpty();
+        assertThat(hotFeed.page(null, null, 100).postIds()).doesNotContain(id);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.PostScoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Ranking and paging of HotFeed, driven through recordPost/recordComment
+ * with a one-hour half-life. Nothing here touches the database.
+ */
+class HotFeedTest {
+
+    private static final Duration HALF_LIFE = Duration.ofHours(1);
+
+    private HotFeed feed;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        feed = new HotFeed(mock(PostRepository.class), mock(CommentRepository.class),
+                mock(PostScoreRepository.class), mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+                mock(ResourceVersions.class), HALF_LIFE.toHours());
+        now = Instant.now();
+    }
+
+    // the post's creation plus events - 1 comments, all at `at`
+    private void activity(long postId, Long communityId, Instant at, int events) {
+        feed.recordPost(postId, communityId, at);
+        for (int i = 1; i < events; i++)
+            feed.recordComment(postId, communityId, at);
+    }
+
+    private List<Long> allPages(Long communityId, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            HotFeed.Page page = feed.page(communityId, cursor, pageSize);
+            ids.addAll(page.postIds());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    void olderActivityCountsHalfPerHalfLife() {
+        // 4 events three half-lives ago weigh 0.5, 1 event now weighs 1,
+        // 3 events one half-life ago weigh 1.5
+        activity(1, 10L, now.minus(HALF_LIFE.multipliedBy(3)), 4);
+        activity(2, 10L, now, 1);
+        activity(3, 20L, now.minus(HALF_LIFE), 3);
+
+        assertThat(feed.page(null, null, 10).postIds()).containsExactly(3L, 2L, 1L);
+        assertThat(feed.page(10L, null, 10).postIds()).containsExactly(2L, 1L);
+        assertThat(feed.page(20L, null, 10).postIds()).containsExactly(3L);
+        assertThat(feed.page(30L, null, 10).postIds()).isEmpty();
+    }
+
+    @Test
+    void aCommentMovesItsPostUp() {
+        activity(1, null, now.minus(HALF_LIFE), 1);
+        activity(2, null, now.minus(HALF_LIFE), 1);
+        assertThat(feed.page(null, null, 10).postIds()).containsExactly(2L, 1L);
+
+        feed.recordComment(1, null, now);
+
+        assertThat(feed.page(null, null, 10).postIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void cursorIssuedBeforeARebaseContinuesWhereItLeftOff() {
+        for (long id = 1; id <= 7; id++)
+            activity(id, null, now.minus(Duration.ofMinutes(id * 10)), 1);
+        List<Long> expected = allPages(null, 3);
+        assertThat(expected).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+
+        HotFeed.Page first = feed.page(null, null, 3);
+        assertThat(first.hasNext()).isTrue();
+        feed.rebase(now.plus(HALF_LIFE.multipliedBy(2)).getEpochSecond());
+
+        HotFeed.Page second = feed.page(null, first.nextCursor(), 3);
+        assertThat(second.postIds()).containsExactly(4L, 5L, 6L);
+        assertThat(feed.page(null, second.nextCursor(), 3).postIds()).containsExactly(7L);
+        assertThat(allPages(null, 3)).isEqualTo(expected);
+    }
+
+    @Test
+    void rebaseDropsPostsThatDecayedToNothing() {
+        activity(1, 10L, now.minus(HALF_LIFE.multipliedBy(11)), 1);
+        activity(2, 20L, now, 1);
+        assertThat(feed.page(null, null, 10).postIds()).containsExactly(2L, 1L);
+
+        feed.rebase(now.getEpochSecond());
+
+        assertThat(feed.page(null, null, 10).postIds()).containsExactly(2L);
+        assertThat(feed.page(10L, null, 10).postIds()).isEmpty();
+        assertThat(feed.page(20L, null, 10).postIds()).containsExactly(2L);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        activity(1, null, now, 1);
+        assertThatThrownBy(() -> feed.page(null, "not-a-cursor", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.HashtagView;
+import com.example.demo_springboot.DTO.PostView;
+import com.example.demo_springboot.model.Hashtag;
+import com.example.demo_springboot.repository.CommunityRepository;
+import com.example.demo_springboot.repository.FlagRepository;
+import com.example.demo_springboot.repository.HashtagPostRepository;
+import com.example.demo_springboot.repository.HashtagRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.ReferenceNameUpserter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hashtag, community and flag names resolved by createPost: existing names
+ * are reused, and names that do not fit the column are rejected instead of
+ * being truncated or dropped.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReferenceNamesTest {
+
+    private static final String TOO_LONG = "x".repeat(ReferenceNameUpserter.MAX_NAME_LENGTH + 1);
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private HashtagRepository hashtagRepository;
+    @Autowired
+    private HashtagPostRepository hashtagPostRepository;
+    @Autowired
+    private CommunityRepository communityRepository;
+    @Autowired
+    private FlagRepository flagRepository;
+
+    @AfterEach
+    void cleanUp() {
+        hashtagPostRepository.deleteAll();
+        postRepository.deleteAll();
+        hashtagRepository.deleteAll();
+        communityRepository.findByNameIgnoreCase("fresh-community").ifPresent(communityRepository::delete);
+        flagRepository.findByNameIgnoreCase("fresh-flag").ifPresent(flagRepository::delete);
+    }
+
+    @Test
+    void existingNamesAreReusedWhateverTheirCase() {
+        Hashtag java = hashtagRepository.save(new Hashtag(null, "java"));
+
+        PostView post = dashboardService.createPost(Map.of("title", "t", "body", "b",
+                "hashtags", "@JAVA @kotlin", "community", "fresh-community", "flag", "fresh-flag"));
+        PostView again = dashboardService.createPost(Map.of("title", "t", "body", "b",
+                "hashtags", "@Kotlin", "community", "FRESH-community", "flag", "Fresh-Flag"));
+
+        assertThat(post.hashtags()).extracting(HashtagView::id).contains(java.getId());
+        assertThat(hashtagRepository.findAll()).extracting(Hashtag::getName).containsExactlyInAnyOrder("java", "kotlin");
+        assertThat(again.community().id()).isEqualTo(post.community().id());
+        assertThat(again.flag().id()).isEqualTo(post.flag().id());
+    }
+
+    @Test
+    void namesTooLongForTheColumnAreRejected() {
+        for (Map<String, Object> payload : List.<Map<String, Object>>of(
+                Map.of("title", "t", "body", "b", "hashtags", "@ok @" + TOO_LONG),
+                Map.of("title", "t", "body", "b", "community", TOO_LONG),
+                Map.of("title", "t", "body", "b", "flag", TOO_LONG))) {
+            assertThatThrownBy(() -> dashboardService.checkReferenceNames(payload))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> dashboardService.createPost(payload))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(postRepository.count()).isZero();
+        assertThat(hashtagRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.DTO.SuggestionView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypeaheadIndexTest {
+
+    private static TypeaheadIndex index(SuggestionView... rows) {
+        TypeaheadIndex index = new TypeaheadIndex();
+        index.load(List.of(rows));
+        return index;
+    }
+
+    private static List<String> names(List<SuggestionView> suggestions) {
+        return suggestions.stream().map(SuggestionView::name).toList();
+    }
+
+    @Test
+    void prefixMatchesComeBeforeInfixMatches() {
+        TypeaheadIndex index = index(new SuggestionView(1L, "java", 5), new SuggestionView(2L, "javascript", 1),
+                new SuggestionView(3L, "learnjava", 100), new SuggestionView(4L, "kotlin", 50));
+
+        assertThat(names(index.suggest("jav", 10))).containsExactly("java", "javascript", "learnjava");
+    }
+
+    @Test
+    void higherCountsWinWithinAGroupAndTiesGoByName() {
+        TypeaheadIndex index = index(new SuggestionView(1L, "spring", 1), new SuggestionView(2L, "springdata", 10),
+                new SuggestionView(3L, "springboot", 10));
+
+        assertThat(names(index.suggest("spr", 2))).containsExactly("springboot", "springdata");
+        assertThat(names(index.suggest("spr", 10))).containsExactly("springboot", "springdata", "spring");
+    }
+
+    @Test
+    void infixMatchesNeedThreeCharacters() {
+        TypeaheadIndex index = index(new SuggestionView(1L, "java", 1));
+
+        assertThat(index.suggest("av", 10)).isEmpty();
+        assertThat(names(index.suggest("ava", 10))).containsExactly("java");
+    }
+
+    @Test
+    void matchingIgnoresCaseAndKeepsTheOriginalSpelling() {
+        TypeaheadIndex index = index(new SuggestionView(1L, "SpringBoot", 1));
+
+        assertThat(names(index.suggest(" SPRING ", 10))).containsExactly("SpringBoot");
+        assertThat(names(index.suggest("gbo", 10))).containsExactly("SpringBoot");
+    }
+
+    @Test
+    void countChangesReorderWithoutARebuild() {
+        TypeaheadIndex index = index(new SuggestionView(1L, "rust", 1), new SuggestionView(2L, "ruby", 2));
+        assertThat(names(index.suggest("ru", 10))).containsExactly("ruby", "rust");
+
+        index.adjustCount(1L, 5);
+
+        assertThat(index.suggest("ru", 10)).extracting(SuggestionView::count).containsExactly(6L, 2L);
+        assertThat(names(index.suggest("ru", 10))).containsExactly("rust", "ruby");
+    }
+
+    @Test
+    void addedNamesAreSuggestedStraightAway() {
+        TypeaheadIndex index = index(new SuggestionView(1L, "java", 3));
+
+        index.add(2L, "javelin", 1);
+        index.add(3L, "myjava", 5);
+        index.add(1L, "ignored", 100);
+
+        assertThat(names(index.suggest("jav", 10))).containsExactly("java", "javelin", "myjava");
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void namesAddedPastTheRebuildThresholdStayFindable() {
+        TypeaheadIndex index = new TypeaheadIndex();
+        for (int i = 0; i < 300; i++)
+            index.add(i, "tag" + i, 0);
+
+        List<String> expected = new ArrayList<>();
+        expected.add("tag29");
+        for (int i = 290; i < 300; i++)
+            expected.add("tag" + i);
+        assertThat(index.size()).isEqualTo(300);
+        assertThat(names(index.suggest("tag29", 20))).containsExactlyElementsOf(expected);
+        // infix matches go through the trigram lists of the rebuilt snapshot
+        assertThat(names(index.suggest("g29", 20))).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void loadKeepsNamesAddedAfterTheRowsWereRead() {
+        TypeaheadIndex index = new TypeaheadIndex();
+        index.add(3L, "deleted", 0);
+        index.add(10L, "fresh", 0);
+
+        index.load(List.of(new SuggestionView(5L, "loaded", 0)));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(names(index.suggest("fre", 10))).containsExactly("fresh");
+        assertThat(index.suggest("del", 10)).isEmpty();
+    }
+}
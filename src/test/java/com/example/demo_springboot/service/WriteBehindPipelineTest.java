@@ -0,0 +1,255 @@
+package com.example.demo_springboot.service;
+
+import com.example.demo_springboot.model.Comment;
+import com.example.demo_springboot.model.Post;
+import com.example.demo_springboot.repository.CommentRepository;
+import com.example.demo_springboot.repository.HashtagPostRepository;
+import com.example.demo_springboot.repository.PostRepository;
+import com.example.demo_springboot.repository.UserRepository;
+import com.example.demo_springboot.service.WriteBehindPipeline.QueuedComment;
+import com.example.demo_springboot.service.WriteBehindPipeline.QueuedPost;
+import com.example.demo_springboot.service.WriteBehindPipeline.QueuedWrite;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLTransientConnectionException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Journal replay and failure handling of the write-behind pipeline. Each
+ * test runs its own pipeline over a journal in a temporary directory.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WriteBehindPipelineTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private HashtagPostRepository hashtagPostRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    @Autowired
+    private IdSequences idSequences;
+    @Autowired
+    private HotFeed hotFeed;
+    @Autowired
+    private ResourceVersions resourceVersions;
+    @Autowired
+    private LiveEventHub liveEventHub;
+    @Autowired
+    private NameSuggestions nameSuggestions;
+    @Autowired
+    private HashtagTrends hashtagTrends;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path dir;
+
+    private Path journal;
+    private Path deadLetter;
+    private Long existingPostId;
+
+    @BeforeEach
+    void seed() {
+        journal = dir.resolve("journal.ndjson");
+        deadLetter = dir.resolve("dead-letter.ndjson");
+        Post post = new Post();
+        post.setTitle("existing");
+        post.setBody("body");
+        existingPostId = postRepository.save(post).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+    }
+
+    private WriteBehindPipeline pipeline(PlatformTransactionManager transactionManager, long shutdownTimeoutMs) {
+        return new WriteBehindPipeline(true, 100, 50, 10, journal.toString(), deadLetter.toString(), 10,
+                shutdownTimeoutMs, dashboardService, postRepository, commentRepository, hashtagPostRepository,
+                userRepository, postSearchIndex, idSequences, hotFeed, resourceVersions, liveEventHub, nameSuggestions, hashtagTrends,
+                eventPublisher, jdbcTemplate, transactionManager, objectMapper);
+    }
+
+    // start replays the journal, stop waits for the worker to flush it
+    private void replay(WriteBehindPipeline pipeline) throws Exception {
+        pipeline.start();
+        pipeline.stop();
+    }
+
+    private void writeJournal(QueuedWrite... writes) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (QueuedWrite write : writes)
+            lines.add(objectMapper.writerFor(QueuedWrite.class).writeValueAsString(write));
+        Files.write(journal, lines, StandardCharsets.UTF_8);
+    }
+
+    private QueuedPost post(String title) {
+        return new QueuedPost(idSequences.next(IdSequences.POSTS, 1), Instant.now(),
+                Map.of("title", title, "body", "queued"));
+    }
+
+    private QueuedComment comment(long postId, Long parentId) {
+        return new QueuedComment(idSequences.next(IdSequences.COMMENTS, 1), Instant.now(), postId, parentId, null,
+                "queued");
+    }
+
+    @Test
+    void journalIsReplayedOnStartAndEmptiedOnceFlushed() throws Exception {
+        QueuedPost post = post("from journal");
+        QueuedComment top = comment(post.id(), null);
+        QueuedComment reply = comment(post.id(), top.id());
+        writeJournal(post, top, reply);
+
+        replay(pipeline(transactionManager, 10_000));
+
+        assertThat(postRepository.findById(post.id())).get().extracting(Post::getTitle).isEqualTo("from journal");
+        Comment stored = commentRepository.findById(reply.id()).orElseThrow();
+        assertThat(stored.getDepth()).isEqualTo(1);
+        assertThat(stored.getPath())
+                .isEqualTo(CommentPaths.childPath(CommentPaths.childPath(null, top.id()), reply.id()));
+        assertThat(commentRepository.findById(top.id())).get().extracting(Comment::getReplyCount).isEqualTo(1);
+        assertThat(Files.size(journal)).isZero();
+        assertThat(deadLetter).doesNotExist();
+    }
+
+    @Test
+    void replayingWritesThatAreAlreadyStoredChangesNothing() throws Exception {
+        QueuedPost post = post("once");
+        QueuedComment top = comment(existingPostId, null);
+        writeJournal(post, top);
+        replay(pipeline(transactionManager, 10_000));
+
+        // a crash after the commit but before the journal was emptied
+        writeJournal(post, top);
+        replay(pipeline(transactionManager, 10_000));
+
+        assertThat(postRepository.count()).isEqualTo(2);
+        assertThat(commentRepository.count()).isEqualTo(1);
+        assertThat(postRepository.findById(existingPostId)).get()
+                .extracting(Post::getTopLevelCommentCount).isEqualTo(1);
+        assertThat(Files.size(journal)).isZero();
+    }
+
+    @Test
+    void rejectedWritesGoToTheDeadLetterFileAndTheRestAreFlushed() throws Exception {
+        QueuedComment orphan = comment(Long.MAX_VALUE, null);
+        QueuedComment good = comment(existingPostId, null);
+        writeJournal(orphan, good);
+
+        replay(pipeline(transactionManager, 10_000));
+
+        assertThat(commentRepository.existsById(good.id())).isTrue();
+        assertThat(commentRepository.existsById(orphan.id())).isFalse();
+        List<String> deadLetters = Files.readAllLines(deadLetter, StandardCharsets.UTF_8);
+        assertThat(deadLetters).hasSize(1);
+        assertThat(objectMapper.readValue(deadLetters.get(0), QueuedWrite.class)).isEqualTo(orphan);
+        assertThat(Files.size(journal)).isZero();
+    }
+
+    @Test
+    void transientFailuresAreRetriedUntilTheyClear() throws Exception {
+        QueuedPost post = post("retried");
+        writeJournal(post);
+
+        replay(pipeline(new FlakyTransactionManager(transactionManager, 3), 10_000));
+
+        assertThat(postRepository.existsById(post.id())).isTrue();
+        assertThat(deadLetter).doesNotExist();
+        assertThat(Files.size(journal)).isZero();
+    }
+
+    @Test
+    void writesStayInTheJournalWhenTheDatabaseNeverComesBack() throws Exception {
+        QueuedPost post = post("kept");
+        writeJournal(post);
+
+        replay(pipeline(new FlakyTransactionManager(transactionManager, Integer.MAX_VALUE), 200));
+
+        assertThat(postRepository.existsById(post.id())).isFalse();
+        assertThat(deadLetter).doesNotExist();
+        List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(1);
+        assertThat(objectMapper.readValue(lines.get(0), QueuedWrite.class)).isEqualTo(post);
+    }
+
+    @Test
+    void onlyUnavailabilityCountsAsTransient() {
+        assertThat(WriteBehindPipeline.isTransient(new CannotAcquireLockException("lock wait timeout"))).isTrue();
+        assertThat(WriteBehindPipeline.isTransient(new QueryTimeoutException("timeout"))).isTrue();
+        assertThat(WriteBehindPipeline.isTransient(new CannotCreateTransactionException("no connection",
+                new SQLTransientConnectionException("pool exhausted")))).isTrue();
+        assertThat(WriteBehindPipeline.isTransient(new DataIntegrityViolationException("fk"))).isFalse();
+        assertThat(WriteBehindPipeline.isTransient(new IllegalArgumentException("bad payload"))).isFalse();
+    }
+
+    /**
+     * Fails to open the first {@code failures} transactions, as if the
+     * database were unreachable.
+     */
+    private static final class FlakyTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+        private final AtomicInteger failures;
+
+        FlakyTransactionManager(PlatformTransactionManager delegate, int failures) {
+            this.delegate = delegate;
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            if (failures.getAndDecrement() > 0)
+                throw new CannotCreateTransactionException("database unavailable");
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+}